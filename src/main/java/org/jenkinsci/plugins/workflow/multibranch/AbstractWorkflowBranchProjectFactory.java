@@ -27,7 +27,9 @@ package org.jenkinsci.plugins.workflow.multibranch;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.BulkChange;
 import hudson.model.Item;
+import hudson.model.Items;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.branch.Branch;
@@ -47,6 +49,12 @@ public abstract class AbstractWorkflowBranchProjectFactory extends BranchProject
 
     private static final Logger LOGGER = Logger.getLogger(AbstractWorkflowBranchProjectFactory.class.getName());
 
+    /** Number of {@link #setBranch} calls since the last {@link #resetSkippedSaves} which found nothing to save. */
+    private transient AtomicInteger skippedSaves;
+
+    /** Set while indexing to defer saves of modified branch projects made on the indexing thread. */
+    private transient volatile BranchProjectWriter writer;
+
     protected abstract FlowDefinition createDefinition();
 
     protected abstract SCMSourceCriteria getSCMSourceCriteria(SCMSource source);
@@ -65,21 +73,88 @@ public abstract class AbstractWorkflowBranchProjectFactory extends BranchProject
     @NonNull
     @Override public WorkflowJob setBranch(@NonNull WorkflowJob project, @NonNull Branch branch) {
         try (BulkChange bc = new BulkChange(project)) {
-            project.setDefinition(createDefinition());
+            boolean changed = false;
+            FlowDefinition definition = createDefinition();
+            if (!sameXml(project.getDefinition(), definition)) {
+                project.setDefinition(definition);
+                changed = true;
+            }
             BranchJobProperty property = project.getProperty(BranchJobProperty.class);
             if (property == null) {
                 project.addProperty(new BranchJobProperty(branch));
-            } else { // TODO may add equality check if https://github.com/jenkinsci/branch-api-plugin/pull/36 or equivalent is implemented
+                changed = true;
+            } else if (!sameXml(property.getBranch(), branch)) {
                 property.setBranch(branch);
                 project.save();
+                changed = true;
+            }
+            changed |= DefaultJobPropertiesBranchProperty.stamp(project, branch);
+            BranchProjectWriter writer = this.writer;
+            if (writer != null && !writer.isOwner()) {
+                writer = null; // e.g. a branch event arriving during indexing
+            }
+            if (writer != null) {
+                writer.observed();
+                if (!project.getConfigFile().exists()) {
+                    writer = null; // a new project from newInstance: write it now, and defer only updates
+                }
+            }
+            if (!changed) {
+                skippedSaves().incrementAndGet();
+            } else if (writer != null) {
+                writer.save(project); // snapshots the XML now; the BulkChange is closed without saving
+            } else {
+                bc.commit();
             }
-            bc.commit();
         } catch (IOException x) {
             LOGGER.log(Level.WARNING, null, x);
         }
         return project;
     }
 
+    /**
+     * Compares two objects by their persisted form.
+     */
+    private static boolean sameXml(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getClass() == b.getClass() && Items.XSTREAM2.toXML(a).equals(Items.XSTREAM2.toXML(b));
+    }
+
+    private synchronized AtomicInteger skippedSaves() {
+        if (skippedSaves == null) {
+            skippedSaves = new AtomicInteger();
+        }
+        return skippedSaves;
+    }
+
+    /**
+     * Starts deferring saves from {@link #setBranch}, if enabled.
+     * @return the writer to {@linkplain BranchProjectWriter#await await}, or null
+     */
+    BranchProjectWriter startWriteBehind() {
+        if (!BranchProjectWriter.isEnabled()) {
+            return null;
+        }
+        BranchProjectWriter writer = new BranchProjectWriter();
+        this.writer = writer;
+        return writer;
+    }
+
+    /** Stops deferring saves; subsequent calls to {@link #setBranch} save synchronously again. */
+    void stopWriteBehind() {
+        writer = null;
+    }
+
+    /**
+     * Resets the count of {@link #setBranch} calls which found nothing to save.
+     * @return the count since the last reset
+     */
+    int resetSkippedSaves() {
+        return skippedSaves().getAndSet(0);
+    }
+
     @Override public boolean isProject(Item item) {
         return item instanceof WorkflowJob && ((WorkflowJob) item).getProperty(BranchJobProperty.class) != null;
     }
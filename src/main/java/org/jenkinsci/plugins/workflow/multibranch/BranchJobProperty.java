@@ -24,15 +24,26 @@
 
 package org.jenkinsci.plugins.workflow.multibranch;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Extension;
+import hudson.XmlFile;
 import hudson.model.AbstractItem;
 import hudson.model.Item;
 import hudson.model.JobPropertyDescriptor;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
 import hudson.security.ACL;
 import hudson.security.Permission;
 import hudson.util.AlternativeUiTextProvider;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import jenkins.branch.Branch;
+import jenkins.branch.BranchProperty;
+import jenkins.scm.api.SCMHead;
+import jenkins.util.SystemProperties;
 import org.springframework.security.core.Authentication;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowJobProperty;
@@ -45,49 +56,164 @@ import org.kohsuke.stapler.export.ExportedBean;
 @ExportedBean
 public class BranchJobProperty extends WorkflowJobProperty {
 
-    private @NonNull Branch branch;
+    /**
+     * Whether to save branches which can be rebuilt from their source as {@link #sourceId}, {@link #head} and {@link #branchProperties}
+     * rather than as a full {@link #branch}, which includes the {@link hudson.scm.SCM}.
+     * Either form is read regardless, but versions before this one only read the full form, so this is off by default:
+     * turn it off again and save the branch projects, for example by rescanning, before downgrading.
+     * A branch saved in compact form is rebuilt from the current configuration of its source,
+     * or treated as dead, with no {@link hudson.scm.SCM}, if that source has been removed.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Just for scripting.")
+    public static boolean COMPACT = SystemProperties.getBoolean(BranchJobProperty.class.getName() + ".COMPACT", false);
+
+    /**
+     * Full persisted form of the branch, only set while this property is being read or written.
+     * @see #readResolve
+     * @see #writeReplace
+     */
+    private Branch branch;
+
+    /** Compact persisted form of the branch, only set while this property is being read or written. */
+    private String sourceId;
+    private SCMHead head;
+    private List<BranchProperty> branchProperties;
+
+    /**
+     * The current branch. {@link BranchRef} is immutable apart from its cache, so {@link #setBranch} publishes a new snapshot
+     * by replacing the reference and readers such as {@link #decorateACL} and {@link #isBuildable} never need to lock.
+     */
+    private transient volatile BranchRef ref;
 
     BranchJobProperty(@NonNull Branch branch) {
-        this.branch = branch;
+        this.ref = new BranchRef(branch, false);
+    }
+
+    private Object readResolve() {
+        if (branch != null) {
+            ref = new BranchRef(branch, true);
+        } else if (sourceId != null && head != null) {
+            ref = new BranchRef(sourceId, head, branchProperties != null ? branchProperties : Collections.emptyList());
+        } else {
+            // Dropping the property here lets the JENKINS-55116 repair restore it, rather than failing on every later use.
+            throw new IllegalStateException("BranchJobProperty saved with neither a branch nor a source ID and head");
+        }
+        branch = null;
+        sourceId = null;
+        head = null;
+        branchProperties = null;
+        return this;
+    }
+
+    private Object writeReplace() {
+        BranchRef current = ref;
+        BranchJobProperty persisted = new BranchJobProperty(current);
+        if (COMPACT && current.isRebuildable()) {
+            persisted.sourceId = current.getSourceId();
+            persisted.head = current.getHead();
+            persisted.branchProperties = new ArrayList<>(current.getProperties());
+        } else {
+            persisted.branch = current.get(owner);
+        }
+        return persisted;
+    }
+
+    private BranchJobProperty(BranchRef ref) {
+        this.ref = ref;
     }
 
     @Exported
-    public synchronized @NonNull Branch getBranch() {
-        return branch;
+    public @NonNull Branch getBranch() {
+        return ref.get(owner);
+    }
+
+    void setBranch(@NonNull Branch branch) {
+        this.ref = new BranchRef(branch, false);
+    }
+
+    /**
+     * The branch if it is still held strongly, as it is when this property has just been read and not yet attached to a project.
+     */
+    @CheckForNull Branch peekBranch() {
+        return ref.peek();
+    }
+
+    @Override protected void setOwner(@NonNull WorkflowJob owner) {
+        super.setOwner(owner);
+        ref.attached();
+    }
+
+    /**
+     * Same as {@code getBranch().getHead()} but never needs to rebuild the branch.
+     */
+    @NonNull SCMHead getHead() {
+        return ref.getHead();
     }
 
-    synchronized void setBranch(@NonNull Branch branch) {
-        branch.getClass();
-        this.branch = branch;
+    /**
+     * Same as {@code getBranch().getSourceId()} but never needs to rebuild the branch.
+     */
+    @CheckForNull String getSourceId() {
+        return ref.getSourceId();
+    }
+
+    /**
+     * Same as {@code getBranch().getProperties()} but never needs to rebuild the branch.
+     */
+    @NonNull List<BranchProperty> getBranchProperties() {
+        return ref.getProperties();
     }
 
     @NonNull
     @Override public ACL decorateACL(@NonNull final ACL acl) {
-        return new ACL() {
-            @Override public boolean hasPermission2(@NonNull Authentication a, @NonNull Permission permission) {
-                // This project is managed by its parent and may not be directly configured or deleted by users.
-                // Note that Item.EXTENDED_READ may still be granted, so you can still see Snippet Generator, etc.
-                if (ACL.SYSTEM2.equals(a)) {
-                    return true; // e.g., ComputedFolder.updateChildren
-                } else if (permission == Item.CONFIGURE) {
-                    return false;
-                } else if (permission == Item.DELETE && !(branch instanceof Branch.Dead)) {
-                    // allow early manual clean-up of dead branches
-                    return false;
-                } else {
-                    return acl.hasPermission2(a, permission);
-                }
+        return new BranchACL(acl, ref.isDead());
+    }
+
+    private static final class BranchACL extends ACL {
+
+        private final ACL base;
+        private final boolean dead;
+
+        BranchACL(ACL base, boolean dead) {
+            this.base = base;
+            this.dead = dead;
+        }
+
+        @Override public boolean hasPermission2(@NonNull Authentication a, @NonNull Permission permission) {
+            // This project is managed by its parent and may not be directly configured or deleted by users.
+            // Note that Item.EXTENDED_READ may still be granted, so you can still see Snippet Generator, etc.
+            if (permission == Item.CONFIGURE || (permission == Item.DELETE && !dead)) { // allow early manual clean-up of dead branches
+                return ACL.SYSTEM2.equals(a); // e.g., ComputedFolder.updateChildren
             }
-        };
+            // Not every authorization strategy grants SYSTEM everything itself.
+            return ACL.SYSTEM2.equals(a) || base.hasPermission2(a, permission);
+        }
+
     }
 
     @Override public Boolean isBuildable() {
-        if (branch instanceof Branch.Dead) {
+        if (ref.isDead()) {
             return false;
         }
         return null;
     }
 
+    /**
+     * Lets a new branch be collected once its project has been saved.
+     */
+    @Extension public static final class SaveableListenerImpl extends SaveableListener {
+
+        @Override public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof WorkflowJob) {
+                BranchJobProperty property = ((WorkflowJob) o).getProperty(BranchJobProperty.class);
+                if (property != null) {
+                    property.ref.saved();
+                }
+            }
+        }
+
+    }
+
     @Extension public static class DescriptorImpl extends JobPropertyDescriptor {
 
         @NonNull
@@ -106,7 +232,7 @@ public class BranchJobProperty extends WorkflowJobProperty {
                 WorkflowJob job = (WorkflowJob) context;
                 BranchJobProperty property = job.getProperty(BranchJobProperty.class);
                 if (property != null) {
-                    return property.getBranch().getHead().getPronoun();
+                    return property.getHead().getPronoun();
                 }
             }
             return null;
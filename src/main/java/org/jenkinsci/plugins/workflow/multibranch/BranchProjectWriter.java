@@ -0,0 +1,224 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Items;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.util.AtomicFileWriter;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+
+/**
+ * Writes branch projects modified during indexing on background threads, rather than one at a time on the indexing thread.
+ * The XML is captured by {@link #save} on the calling thread, so later modifications cannot leak into a half-updated write;
+ * only the bytes are written in the background.
+ * A project snapshotted several times before it is written is written once, with the latest snapshot.
+ * Snapshots and writes are made while holding the project monitor, as {@link WorkflowJob#save} does,
+ * and a synchronous save discards any pending snapshot, so an older snapshot never overwrites newer content.
+ * {@link #await} is the barrier: once it returns, every snapshot passed to {@link #save} has been written or superseded.
+ */
+final class BranchProjectWriter {
+
+    private static final Logger LOGGER = Logger.getLogger(BranchProjectWriter.class.getName());
+
+    /** Number of threads writing branch projects, shared among all multibranch projects. Zero writes synchronously, as before. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Just for scripting.")
+    public static int THREADS = SystemProperties.getInteger(BranchProjectWriter.class.getName() + ".THREADS", 4);
+
+    private static ThreadPoolExecutor pool;
+
+    /** Writers between construction and {@link #await}, consulted by {@link Discarder}. */
+    private static final Set<BranchProjectWriter> ACTIVE = ConcurrentHashMap.newKeySet();
+
+    static synchronized ThreadPoolExecutor pool() {
+        if (pool == null || pool.getMaximumPoolSize() != THREADS) {
+            if (pool != null) {
+                pool.shutdown(); // lets queued writes finish
+            }
+            pool = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "BranchProjectWriter"));
+            pool.allowCoreThreadTimeOut(true);
+        }
+        return pool;
+    }
+
+    private final long start = System.nanoTime();
+    private final Thread owner = Thread.currentThread();
+    private final Map<WorkflowJob, byte[]> snapshots = new ConcurrentHashMap<>();
+    private final List<Future<?>> writes = new ArrayList<>();
+    private final AtomicInteger observed = new AtomicInteger();
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger superseded = new AtomicInteger();
+
+    BranchProjectWriter() {
+        ACTIVE.add(this);
+    }
+
+    /** Records that a branch project was examined, whether or not it needed saving. */
+    void observed() {
+        observed.incrementAndGet();
+    }
+
+    /** Whether saves may be deferred at all. */
+    static boolean isEnabled() {
+        return THREADS > 0;
+    }
+
+    /**
+     * Whether the current thread is the one which created this writer.
+     * Saves from other threads, such as branch events arriving during indexing, should be made synchronously.
+     */
+    boolean isOwner() {
+        return Thread.currentThread() == owner;
+    }
+
+    /**
+     * Captures the current XML of a project and schedules it to be written,
+     * replacing any snapshot of the same project still waiting to be written.
+     */
+    void save(WorkflowJob project) throws IOException {
+        synchronized (project) {
+            byte[] xml = snapshot(project);
+            if (snapshots.put(project, xml) != null) {
+                superseded.incrementAndGet();
+                return; // the scheduled write will pick up this snapshot
+            }
+        }
+        Future<?> write = pool().submit(() -> {
+            write(project);
+            return null;
+        });
+        synchronized (writes) {
+            writes.add(write);
+        }
+    }
+
+    private static byte[] snapshot(WorkflowJob project) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write("<?xml version='1.1' encoding='UTF-8'?>\n".getBytes(StandardCharsets.UTF_8));
+        Items.XSTREAM2.toXMLUTF8(project, baos);
+        return baos.toByteArray();
+    }
+
+    private void write(WorkflowJob project) throws IOException {
+        synchronized (project) {
+            byte[] xml = snapshots.remove(project);
+            if (xml == null) {
+                return; // superseded by a synchronous save
+            }
+            XmlFile file = project.getConfigFile();
+            AtomicFileWriter w = new AtomicFileWriter(file.getFile().toPath(), StandardCharsets.UTF_8);
+            try {
+                w.write(new String(xml, StandardCharsets.UTF_8));
+                w.commit();
+            } finally {
+                w.abort();
+            }
+            written.incrementAndGet();
+            SaveableListener.fireOnChange(project, file);
+        }
+    }
+
+    /**
+     * Waits for all scheduled writes to complete and reports indexing throughput.
+     */
+    void await(TaskListener listener) throws InterruptedException {
+        List<Future<?>> toAwait;
+        synchronized (writes) {
+            toAwait = new ArrayList<>(writes);
+            writes.clear();
+        }
+        for (Future<?> write : toAwait) {
+            try {
+                write.get();
+            } catch (ExecutionException x) {
+                Throwable cause = x.getCause();
+                LOGGER.log(Level.WARNING, "could not save branch project", cause);
+                listener.error("Could not save branch project: " + (cause instanceof IOException ? cause.getMessage() : cause));
+            }
+        }
+        ACTIVE.remove(this);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int count = observed.get();
+        if (count > 0) {
+            listener.getLogger().format("Processed %d branch project(s) in %.1f s (%.1f/s); %d written in the background, %d superseded before being written%n",
+                    count, elapsed / 1000.0, elapsed == 0 ? 0.0 : count * 1000.0 / elapsed, written.get(), superseded.get());
+        }
+    }
+
+    /** Number of snapshots written so far. */
+    int getWritten() {
+        return written.get();
+    }
+
+    /** Number of snapshots replaced by a later snapshot or discarded by a synchronous save before being written. */
+    int getSuperseded() {
+        return superseded.get();
+    }
+
+    /**
+     * Discards pending snapshots of a project which has just been saved synchronously.
+     * {@link WorkflowJob#save} notifies listeners while holding the project monitor, so no background write can be in progress.
+     */
+    @Extension public static final class Discarder extends SaveableListener {
+
+        @Override public void onChange(Saveable o, XmlFile file) {
+            if (!(o instanceof WorkflowJob) || ACTIVE.isEmpty()) {
+                return;
+            }
+            for (BranchProjectWriter writer : ACTIVE) {
+                if (writer.snapshots.remove(o) != null) {
+                    writer.superseded.incrementAndGet();
+                }
+            }
+        }
+
+    }
+
+}
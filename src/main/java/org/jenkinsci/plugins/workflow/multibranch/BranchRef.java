@@ -0,0 +1,292 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.scm.NullSCM;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import jenkins.branch.Branch;
+import jenkins.branch.BranchProperty;
+import jenkins.branch.BranchSource;
+import jenkins.scm.api.SCMHead;
+
+/**
+ * Compact form of a {@link Branch} kept by {@link BranchJobProperty}.
+ * The identifying parts are held directly. The full {@link Branch}, which includes a possibly large {@link hudson.scm.SCM} and actions,
+ * is held strongly only until it could be restored exactly once collected, and softly after that,
+ * so it is the same {@link hudson.scm.SCM} indexing stored, whatever the source configuration is now.
+ * A branch loaded from the config file of its project is restored by reading that file again.
+ * A new branch is restored from a deflated copy of its XML, taken when its project is first saved rather than up front.
+ * Only a branch read back from the compact form of {@link BranchJobProperty} has neither;
+ * it is rebuilt from the {@link BranchSource} of the parent project, as indexing would.
+ */
+final class BranchRef {
+
+    private static final Logger LOGGER = Logger.getLogger(BranchRef.class.getName());
+
+    /** Shares equal property lists among branches. */
+    private static final Interner<Properties> PROPERTIES = Interners.newWeakInterner();
+
+    private final String sourceId;
+    private final SCMHead head;
+    private final Properties properties;
+    private final boolean dead;
+    private final boolean actions;
+
+    /** Whether the branch was read from the config file of its project, which can be read again to restore it. */
+    private final boolean stored;
+
+    /** The branch, until {@link #attached} or {@link #saved}. */
+    private volatile Branch pinned;
+
+    /** Deflated {@link Items#XSTREAM2} form of the branch, taken by {@link #saved}, or null. */
+    private volatile byte[] snapshot;
+
+    private volatile SoftReference<Branch> branch;
+
+    /** Set once the branch could not be rebuilt because its source is gone. */
+    private volatile boolean orphaned;
+
+    /**
+     * Wraps a new branch, or one just read in full form from a config file.
+     * @param stored whether it was read from the config file of its project
+     */
+    BranchRef(@NonNull Branch branch, boolean stored) {
+        String id = branch.getSourceId();
+        sourceId = id != null ? id.intern() : null;
+        head = branch.getHead();
+        properties = PROPERTIES.intern(new Properties(branch.getProperties()));
+        dead = branch instanceof Branch.Dead;
+        actions = !branch.getActions().isEmpty();
+        this.stored = stored;
+        pinned = branch;
+        this.branch = new SoftReference<>(branch);
+    }
+
+    /**
+     * Restores a reference saved in compact form; the branch is rebuilt when first needed.
+     */
+    BranchRef(@NonNull String sourceId, @NonNull SCMHead head, @NonNull List<BranchProperty> properties) {
+        this.sourceId = sourceId.intern();
+        this.head = head;
+        this.properties = PROPERTIES.intern(new Properties(properties));
+        dead = false;
+        actions = false;
+        stored = false;
+        branch = new SoftReference<>(null);
+    }
+
+    @CheckForNull String getSourceId() {
+        return sourceId;
+    }
+
+    @NonNull SCMHead getHead() {
+        return head;
+    }
+
+    @NonNull List<BranchProperty> getProperties() {
+        return properties.list;
+    }
+
+    boolean isDead() {
+        return dead || orphaned;
+    }
+
+    /**
+     * Whether the branch could be rebuilt from its source, head and properties alone,
+     * so {@link BranchJobProperty} may save it in compact form.
+     */
+    boolean isRebuildable() {
+        return !dead && !actions && sourceId != null;
+    }
+
+    /**
+     * Called once the project has loaded this branch from its config file, from which it may now be restored.
+     */
+    void attached() {
+        if (stored) {
+            pinned = null;
+        }
+    }
+
+    /**
+     * Called once the project has been saved. A new branch is copied now, so it may be collected.
+     */
+    synchronized void saved() {
+        Branch full = pinned;
+        if (full != null && !stored) {
+            snapshot = deflate(Items.XSTREAM2.toXML(full));
+            pinned = null;
+        }
+    }
+
+    /**
+     * The branch if it is held strongly, as it is by a copy of the project just read to restore it.
+     */
+    @CheckForNull Branch peek() {
+        return pinned;
+    }
+
+    /**
+     * Gets the full branch, restoring it if it was collected.
+     * @param owner the branch project, used to find the source
+     * @return the branch, or a dead branch without an SCM if it was saved in compact form and its source is no longer configured
+     */
+    @NonNull Branch get(@CheckForNull Job<?,?> owner) {
+        Branch full = pinned;
+        if (full != null) {
+            return full;
+        }
+        full = branch.get();
+        if (full == null) {
+            synchronized (this) {
+                full = branch.get();
+                if (full == null) {
+                    byte[] copy = snapshot;
+                    full = copy != null ? restore(owner, copy) : stored ? reload(owner) : null;
+                    if (full == null) {
+                        full = rebuild(owner);
+                        if (owner == null) {
+                            return full; // not attached to a project yet, so try again later
+                        }
+                    }
+                    branch = new SoftReference<>(full);
+                }
+            }
+        }
+        return full;
+    }
+
+    /**
+     * Reads the branch again from the config file of its project, if it is still saved there in full form.
+     */
+    private @CheckForNull Branch reload(@CheckForNull Job<?,?> owner) {
+        if (owner == null) {
+            return null;
+        }
+        LOGGER.log(Level.FINE, "Reloading branch of {0}", owner.getFullName());
+        try {
+            Object copy = owner.getConfigFile().read();
+            if (copy instanceof Job) {
+                BranchJobProperty property = ((Job<?,?>) copy).getProperty(BranchJobProperty.class);
+                if (property != null) {
+                    return property.peekBranch();
+                }
+            }
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.WARNING, "Could not reload the branch of " + owner.getFullName(), x);
+        }
+        return null;
+    }
+
+    private @NonNull Branch restore(@CheckForNull Job<?,?> owner, byte[] snapshot) {
+        LOGGER.log(Level.FINE, "Restoring branch of {0}", owner != null ? owner.getFullName() : head);
+        Object restored;
+        try (InputStream is = new InflaterInputStream(new ByteArrayInputStream(snapshot))) {
+            restored = Items.XSTREAM2.fromXML(is);
+        } catch (IOException | RuntimeException x) {
+            throw new IllegalStateException("Could not restore the branch of " + (owner != null ? owner.getFullName() : head), x);
+        }
+        if (!(restored instanceof Branch)) {
+            throw new IllegalStateException("Could not restore the branch of " + (owner != null ? owner.getFullName() : head) + ": got " + restored);
+        }
+        return (Branch) restored;
+    }
+
+    private @NonNull Branch rebuild(@CheckForNull Job<?,?> owner) {
+        if (owner != null && owner.getParent() instanceof WorkflowMultiBranchProject) {
+            BranchSource source = ((WorkflowMultiBranchProject) owner.getParent()).getBranchSource(sourceId);
+            if (source != null) {
+                LOGGER.log(Level.FINE, "Rebuilding branch of {0}", owner.getFullName());
+                orphaned = false;
+                return new Branch(sourceId, head, source.getSource().build(head), properties.list);
+            }
+        }
+        // As if indexing had found the branch gone; the project cannot build, but it still loads and may be deleted.
+        if (owner != null) {
+            LOGGER.log(Level.WARNING, "Cannot rebuild the branch of {0}: source {1} is no longer configured", new Object[] {owner.getFullName(), sourceId});
+            orphaned = true;
+        }
+        return new Branch.Dead(new Branch(sourceId, head, new NullSCM(), properties.list));
+    }
+
+    private static byte[] deflate(String xml) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (OutputStream os = new DeflaterOutputStream(baos)) {
+            os.write(xml.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException x) {
+            throw new AssertionError(x); // in memory
+        }
+        return baos.toByteArray();
+    }
+
+    /** Size of the deflated copy, or zero if there is none. */
+    int getSnapshotSize() {
+        byte[] copy = snapshot;
+        return copy != null ? copy.length : 0;
+    }
+
+    /** A property list compared by its persisted form. */
+    private static final class Properties {
+
+        final List<BranchProperty> list;
+        private final String xml;
+
+        Properties(List<BranchProperty> list) {
+            ArrayList<BranchProperty> copy = new ArrayList<>(list);
+            xml = Items.XSTREAM2.toXML(copy);
+            this.list = Collections.unmodifiableList(copy);
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof Properties && xml.equals(((Properties) o).xml);
+        }
+
+        @Override public int hashCode() {
+            return xml.hashCode();
+        }
+
+    }
+
+}
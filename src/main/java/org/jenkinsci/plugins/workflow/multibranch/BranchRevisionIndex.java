@@ -0,0 +1,312 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.util.AtomicFileWriter;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.api.SCMRevisionAction;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+
+/**
+ * Remembers the revisions recently built by each branch project of a {@link WorkflowMultiBranchProject},
+ * so that questions like “what did this branch last build?” can be answered without loading builds.
+ * Kept in an append-only file in the project directory, one line per completed build or deleted branch project,
+ * which is rewritten without superseded lines once it has grown enough.
+ * Each line is tab-separated and URL-encoded: branch project name, build number, result, source ID, head name, revision
+ * and the XML of the {@link SCMRevisionAction} of the build, so the head can be rebuilt with its own type;
+ * a line with just a branch project name forgets that branch project.
+ */
+final class BranchRevisionIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(BranchRevisionIndex.class.getName());
+
+    static final String FILE = "revisions.log";
+
+    /** Number of builds remembered per branch project. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Just for scripting.")
+    public static int DEPTH = SystemProperties.getInteger(BranchRevisionIndex.class.getName() + ".DEPTH", 5);
+
+    /** A build recorded in the index. */
+    static final class Entry {
+
+        private final int number;
+        private final String sourceId;
+        private final String head;
+        private final String hash;
+        private final String result;
+        private final String action;
+
+        Entry(int number, @CheckForNull String sourceId, @NonNull String head, @NonNull String hash, @NonNull String result, @CheckForNull String action) {
+            this.number = number;
+            this.sourceId = sourceId;
+            this.head = head;
+            this.hash = hash;
+            this.result = result;
+            this.action = action;
+        }
+
+        Entry(int number, @CheckForNull String sourceId, @NonNull String head, @NonNull String hash, @NonNull String result) {
+            this(number, sourceId, head, hash, result, null);
+        }
+
+        Entry(int number, @NonNull SCMRevisionAction action, @NonNull String result) {
+            this(number, action.getSourceId(), action.getRevision().getHead().getName(), action.getRevision().toString(), result,
+                    Run.XSTREAM2.toXML(action));
+        }
+
+        int getNumber() {
+            return number;
+        }
+
+        @CheckForNull String getSourceId() {
+            return sourceId;
+        }
+
+        /** {@link jenkins.scm.api.SCMHead#getName} of the revision. */
+        @NonNull String getHead() {
+            return head;
+        }
+
+        /** {@link jenkins.scm.api.SCMRevision#toString} of the revision, which is the commit hash for most SCMs. */
+        @NonNull String getHash() {
+            return hash;
+        }
+
+        /** {@link hudson.model.Result#toString} of the build. */
+        @NonNull String getResult() {
+            return result;
+        }
+
+        /**
+         * A copy of the {@link SCMRevisionAction} of the build, if it was recorded and can still be read.
+         */
+        @CheckForNull SCMRevisionAction getRevisionAction() {
+            if (action == null) {
+                return null;
+            }
+            try {
+                Object o = Run.XSTREAM2.fromXML(action);
+                return o instanceof SCMRevisionAction ? (SCMRevisionAction) o : null;
+            } catch (RuntimeException x) {
+                LOGGER.log(Level.FINE, "could not read revision of build #" + number, x);
+                return null;
+            }
+        }
+
+    }
+
+    private final File file;
+
+    /** Newest first, by branch project name; null until loaded. */
+    private Map<String, Deque<Entry>> entries;
+
+    /** Lines in {@link #file}, including superseded ones. */
+    private int lines;
+
+    BranchRevisionIndex(@NonNull File dir) {
+        this.file = new File(dir, FILE);
+    }
+
+    /**
+     * Records a completed build.
+     */
+    synchronized void record(@NonNull String branch, @NonNull Entry entry) throws IOException {
+        load();
+        add(branch, entry);
+        append(format(branch, entry));
+    }
+
+    /**
+     * Recently built revisions of a branch project, newest first.
+     */
+    synchronized @NonNull List<Entry> get(@NonNull String branch) {
+        load();
+        Deque<Entry> deque = entries.get(branch);
+        return deque == null ? new ArrayList<>() : new ArrayList<>(deque);
+    }
+
+    /**
+     * Drops the records of a deleted branch project.
+     * Only a marker line is appended, so deleting many branch projects does not rewrite the file each time.
+     */
+    synchronized void forget(@NonNull String branch) throws IOException {
+        load();
+        if (entries.remove(branch) != null) {
+            append(encode(branch));
+        }
+    }
+
+    private void append(String line) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), (line + '\n').getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        lines++;
+        int live = 0;
+        for (Deque<Entry> deque : entries.values()) {
+            live += deque.size();
+        }
+        if (lines > 2 * live + 100) {
+            compact();
+        }
+    }
+
+    private void add(String branch, Entry entry) {
+        Deque<Entry> deque = entries.computeIfAbsent(branch, k -> new ArrayDeque<>());
+        deque.addFirst(entry);
+        while (deque.size() > DEPTH) {
+            deque.removeLast();
+        }
+    }
+
+    private void load() {
+        if (entries != null) {
+            return;
+        }
+        entries = new HashMap<>();
+        lines = 0;
+        if (!file.isFile()) {
+            return;
+        }
+        try (BufferedReader r = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                lines++;
+                String[] fields = line.split("\t", -1);
+                try {
+                    if (fields.length == 1 && !fields[0].isEmpty()) {
+                        entries.remove(decode(fields[0]));
+                    } else if ((fields.length == 6 || fields.length == 7) && !fields[0].isEmpty() && !fields[2].isEmpty() && !fields[4].isEmpty() && !fields[5].isEmpty()) {
+                        add(decode(fields[0]), new Entry(Integer.parseInt(fields[1]), decode(fields[3]), decode(fields[4]), decode(fields[5]), decode(fields[2]),
+                                fields.length == 7 ? decode(fields[6]) : null));
+                    } else {
+                        LOGGER.log(Level.FINE, "skipping unreadable line in {0}", file);
+                    }
+                } catch (IllegalArgumentException x) {
+                    LOGGER.log(Level.FINE, "skipping unreadable line in " + file, x);
+                }
+            }
+        } catch (IOException x) {
+            LOGGER.log(Level.WARNING, "could not read " + file, x);
+        }
+    }
+
+    private void compact() throws IOException {
+        AtomicFileWriter w = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+        try {
+            int written = 0;
+            for (Map.Entry<String, Deque<Entry>> branch : entries.entrySet()) {
+                // oldest first, so that replaying the file yields the same order
+                for (Iterator<Entry> it = branch.getValue().descendingIterator(); it.hasNext();) {
+                    w.write(format(branch.getKey(), it.next()) + '\n');
+                    written++;
+                }
+            }
+            w.commit();
+            lines = written;
+        } finally {
+            w.abort();
+        }
+    }
+
+    private static String format(String branch, Entry entry) {
+        return encode(branch) + '\t' + entry.number + '\t' + encode(entry.result) + '\t' + encode(entry.sourceId) + '\t' + encode(entry.head) + '\t' + encode(entry.hash) + '\t' + encode(entry.action);
+    }
+
+    private static String encode(@CheckForNull String value) {
+        return value == null ? "" : URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static @CheckForNull String decode(String value) {
+        return value.isEmpty() ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /** Whether this index is stored in the given directory. */
+    boolean isIn(@NonNull File dir) {
+        return file.getParentFile().equals(dir);
+    }
+
+    @Extension public static final class RunListenerImpl extends RunListener<WorkflowRun> {
+
+        @Override public void onCompleted(WorkflowRun run, @NonNull TaskListener listener) {
+            WorkflowJob job = run.getParent();
+            if (!(job.getParent() instanceof WorkflowMultiBranchProject)) {
+                return;
+            }
+            SCMRevisionAction action = run.getAction(SCMRevisionAction.class);
+            if (action == null) {
+                return;
+            }
+            try {
+                ((WorkflowMultiBranchProject) job.getParent()).getRevisionIndex().record(job.getName(),
+                        new Entry(run.getNumber(), action, String.valueOf(run.getResult())));
+            } catch (IOException x) {
+                LOGGER.log(Level.WARNING, "could not record revision of " + run, x);
+            }
+        }
+
+    }
+
+    @Extension public static final class ItemListenerImpl extends ItemListener {
+
+        @Override public void onDeleted(Item item) {
+            if (item instanceof WorkflowJob && item.getParent() instanceof WorkflowMultiBranchProject) {
+                try {
+                    ((WorkflowMultiBranchProject) item.getParent()).getRevisionIndex().forget(item.getName());
+                } catch (IOException x) {
+                    LOGGER.log(Level.WARNING, "could not update revision index for " + item.getFullName(), x);
+                }
+            }
+        }
+
+    }
+
+}
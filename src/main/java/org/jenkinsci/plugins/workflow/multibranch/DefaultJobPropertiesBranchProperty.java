@@ -0,0 +1,231 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Descriptor;
+import hudson.model.InvisibleAction;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.JobProperty;
+import hudson.model.JobPropertyDescriptor;
+import hudson.model.Run;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import jenkins.branch.Branch;
+import jenkins.branch.BranchProperty;
+import jenkins.branch.BranchPropertyDescriptor;
+import jenkins.branch.JobDecorator;
+import jenkins.branch.MultiBranchProjectDescriptor;
+import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.DoNotUse;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.StaplerRequest2;
+
+/**
+ * Branch property declaring job properties every branch project should have,
+ * as if each {@code Jenkinsfile} began with the same {@code properties} call.
+ * The properties are stamped onto each branch project when it is indexed rather than by a build.
+ * {@link JobPropertyStep} leaves them alone when a script requests the same values,
+ * and restores them when a script stops overriding them.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"}) // TODO JENKINS-26535: cannot bind List<JobProperty<?>>
+public class DefaultJobPropertiesBranchProperty extends BranchProperty {
+
+    private final List<JobProperty> properties;
+
+    @DataBoundConstructor
+    public DefaultJobPropertiesBranchProperty(List<JobProperty> properties) {
+        this.properties = properties == null ? Collections.emptyList() : new ArrayList<>(properties);
+    }
+
+    public List<JobProperty> getProperties() {
+        return Collections.unmodifiableList(properties);
+    }
+
+    public Map<JobPropertyDescriptor,JobProperty> getPropertiesMap() {
+        return Descriptor.toMap((List) properties);
+    }
+
+    /** No-op impl because the properties are applied by {@link AbstractWorkflowBranchProjectFactory#setBranch}, once per indexing. */
+    @Override
+    public final <P extends Job<P, B>, B extends Run<P, B>> JobDecorator<P, B> jobDecorator(Class<P> clazz) {
+        return null;
+    }
+
+    /**
+     * Finds the default properties configured for a branch.
+     * @return the properties, or an empty list
+     */
+    static @NonNull List<JobProperty> of(@NonNull Branch branch) {
+        return of(branch.getProperties());
+    }
+
+    private static @NonNull List<JobProperty> of(@NonNull List<BranchProperty> branchProperties) {
+        for (BranchProperty property : branchProperties) {
+            if (property instanceof DefaultJobPropertiesBranchProperty) {
+                return ((DefaultJobPropertiesBranchProperty) property).properties;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Finds the default properties configured for a branch project.
+     * @return the properties, or an empty list if this is not a branch project or none are configured
+     */
+    static @NonNull List<JobProperty> of(@NonNull Job<?,?> job) {
+        if (job instanceof WorkflowJob) {
+            BranchJobProperty property = ((WorkflowJob) job).getProperty(BranchJobProperty.class);
+            if (property != null) {
+                return of(property.getBranchProperties());
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Adds default properties to a branch project unless it already has them,
+     * or has an overriding value set by the {@code properties} step.
+     * Each project gets its own copy.
+     * Defaults stamped before but no longer configured are removed, unless the {@code properties} step now sets them.
+     * @return true if the project was modified
+     */
+    static boolean stamp(@NonNull WorkflowJob project, @NonNull Branch branch) throws IOException {
+        List<JobProperty> defaults = of(branch);
+        StampedAction stamped = project.getAction(StampedAction.class);
+        if (defaults.isEmpty() && stamped == null) {
+            return false;
+        }
+        boolean changed = false;
+        JobPropertyTrackerAction tracker = project.getAction(JobPropertyTrackerAction.class);
+        Set<String> ids = new HashSet<>();
+        for (JobProperty property : defaults) {
+            ids.add(property.getDescriptor().getId());
+        }
+        if (stamped != null) {
+            for (String id : stamped.getJobPropertyDescriptors()) {
+                if (ids.contains(id) || (tracker != null && tracker.getJobPropertyDescriptors().contains(id))) {
+                    continue; // still configured, or now set by the Jenkinsfile
+                }
+                for (JobProperty existing : project.getAllProperties()) {
+                    if (existing.getDescriptor().getId().equals(id)) {
+                        project.removeProperty(existing);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        for (JobProperty property : defaults) {
+            String id = property.getDescriptor().getId();
+            JobProperty existing = project.getProperty(property.getDescriptor());
+            if (existing != null) {
+                if (tracker != null && tracker.getJobPropertyDescriptors().contains(id)) {
+                    continue; // overridden by the Jenkinsfile
+                }
+                if (JobPropertyTrackerAction.fingerprint(existing).equals(JobPropertyTrackerAction.fingerprint(property))) {
+                    continue;
+                }
+                project.removeProperty(existing);
+            }
+            project.addProperty(copy(property));
+            changed = true;
+        }
+        if (stamped == null || !stamped.getJobPropertyDescriptors().equals(ids)) {
+            if (ids.isEmpty()) {
+                project.removeAction(stamped);
+            } else {
+                project.replaceAction(new StampedAction(ids));
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Records which defaults were last configured for a branch project, so that {@link #stamp} can remove those no longer configured.
+     * Uses {@link Descriptor#getId()} to identify the {@link JobProperty}s, as {@link JobPropertyTrackerAction} does.
+     */
+    public static final class StampedAction extends InvisibleAction {
+
+        private final Set<String> jobPropertyDescriptors;
+
+        StampedAction(@NonNull Set<String> jobPropertyDescriptors) {
+            this.jobPropertyDescriptors = new HashSet<>(jobPropertyDescriptors);
+        }
+
+        public Set<String> getJobPropertyDescriptors() {
+            return Collections.unmodifiableSet(jobPropertyDescriptors);
+        }
+
+    }
+
+    static JobProperty copy(JobProperty property) {
+        return (JobProperty) Items.XSTREAM2.fromXML(Items.XSTREAM2.toXML(property));
+    }
+
+    @Symbol("defaultJobProperties")
+    @Extension
+    public static class DescriptorImpl extends BranchPropertyDescriptor {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Default job properties";
+        }
+
+        @Override
+        protected boolean isApplicable(@NonNull MultiBranchProjectDescriptor projectDescriptor) {
+            return WorkflowMultiBranchProject.class.isAssignableFrom(projectDescriptor.getClazz());
+        }
+
+        @Override
+        public BranchProperty newInstance(StaplerRequest2 req, @NonNull JSONObject formData) throws FormException {
+            // Same form as the properties step, whose descriptor knows how to bind it.
+            JobPropertyStep step = (JobPropertyStep) ExtensionList.lookupSingleton(JobPropertyStep.DescriptorImpl.class).newInstance(req, formData);
+            return new DefaultJobPropertiesBranchProperty(step.getProperties());
+        }
+
+        @Restricted(DoNotUse.class) // f:descriptorList
+        public Collection<? extends Descriptor<?>> getPropertyDescriptors() {
+            return ExtensionList.lookupSingleton(JobPropertyStep.DescriptorImpl.class).getPropertyDescriptors();
+        }
+
+    }
+
+}
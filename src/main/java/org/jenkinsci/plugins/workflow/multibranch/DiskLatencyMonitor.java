@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.PeriodicWork;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.workflow.flow.FlowDurabilityHint;
+
+/**
+ * Periodically measures how long it takes to write and force a small file to {@code JENKINS_HOME}.
+ * While the smoothed latency is above {@link #THRESHOLD_MILLIS}, the disk is considered saturated
+ * and branches with {@link DurabilityHintBranchProperty#isAdaptive} build with {@link FlowDurabilityHint#PERFORMANCE_OPTIMIZED}.
+ * The disk is considered recovered once the latency falls below half the threshold, so that the hint does not flap.
+ */
+@Extension
+public final class DiskLatencyMonitor extends PeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(DiskLatencyMonitor.class.getName());
+
+    /** Latency in milliseconds above which the disk is considered saturated. Zero, the default, disables adaptive durability. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Just for scripting.")
+    public static long THRESHOLD_MILLIS = SystemProperties.getLong(DiskLatencyMonitor.class.getName() + ".THRESHOLD_MILLIS", 0L);
+
+    /** How often to probe the disk, in seconds. Read once at startup. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Just for scripting.")
+    public static long PERIOD_SECONDS = SystemProperties.getLong(DiskLatencyMonitor.class.getName() + ".PERIOD_SECONDS", 30L);
+
+    private static final int PROBE_SIZE = 4096;
+
+    /** Exponentially weighted moving average of the probe latency, in nanoseconds. */
+    private volatile long latency;
+
+    private volatile boolean saturated;
+
+    private volatile int switches;
+
+    static DiskLatencyMonitor get() {
+        return ExtensionList.lookupSingleton(DiskLatencyMonitor.class);
+    }
+
+    /**
+     * Whether builds of adaptive branches should currently use a less durable hint.
+     */
+    static boolean isSaturated() {
+        if (THRESHOLD_MILLIS <= 0) {
+            return false;
+        }
+        ExtensionList<DiskLatencyMonitor> monitors = ExtensionList.lookup(DiskLatencyMonitor.class);
+        return !monitors.isEmpty() && monitors.get(0).saturated;
+    }
+
+    /** Smoothed latency of the last probes, in milliseconds. */
+    public long getLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(latency);
+    }
+
+    /** Number of times the monitor has switched between the saturated and normal states since startup. */
+    public int getSwitches() {
+        return switches;
+    }
+
+    @Override public long getRecurrencePeriod() {
+        return TimeUnit.SECONDS.toMillis(PERIOD_SECONDS);
+    }
+
+    @Override protected void doRun() throws Exception {
+        if (THRESHOLD_MILLIS <= 0) {
+            if (saturated) {
+                update(0);
+            }
+            return;
+        }
+        update(probe());
+    }
+
+    /**
+     * Writes {@link #PROBE_SIZE} bytes to a file in {@code JENKINS_HOME} and forces them to disk.
+     * @return the elapsed time in nanoseconds
+     */
+    private static long probe() throws IOException {
+        File file = new File(Jenkins.get().getRootDir(), DiskLatencyMonitor.class.getName() + ".probe");
+        long start = System.nanoTime();
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocate(PROBE_SIZE);
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+            ch.force(true);
+        }
+        long elapsed = System.nanoTime() - start;
+        Files.deleteIfExists(file.toPath());
+        return elapsed;
+    }
+
+    /**
+     * Folds in a new sample and switches state if the threshold was crossed.
+     * @param sample latency in nanoseconds
+     */
+    synchronized void update(long sample) {
+        latency = latency == 0 ? sample : (3 * latency + sample) / 4;
+        long threshold = TimeUnit.MILLISECONDS.toNanos(THRESHOLD_MILLIS);
+        boolean nowSaturated = threshold > 0 && (saturated ? latency >= threshold / 2 : latency > threshold);
+        if (nowSaturated != saturated) {
+            saturated = nowSaturated;
+            switches++;
+            if (nowSaturated) {
+                LOGGER.log(Level.WARNING, "Controller disk latency is {0} ms, above {1} ms; adaptive branches will build with {2}",
+                        new Object[] {getLatencyMillis(), THRESHOLD_MILLIS, FlowDurabilityHint.PERFORMANCE_OPTIMIZED});
+            } else {
+                LOGGER.log(Level.INFO, "Controller disk latency is {0} ms; adaptive branches are back to their configured durability",
+                        getLatencyMillis());
+            }
+        } else {
+            LOGGER.log(Level.FINE, "Controller disk latency is {0} ms", getLatencyMillis());
+        }
+    }
+
+}
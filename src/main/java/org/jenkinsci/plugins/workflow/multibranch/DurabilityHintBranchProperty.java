@@ -11,6 +11,7 @@ import jenkins.branch.BranchPropertyDescriptor;
 import jenkins.branch.BranchPropertyStrategy;
 import jenkins.branch.JobDecorator;
 import jenkins.branch.MultiBranchProject;
+import jenkins.scm.api.SCMHead;
 import jenkins.scm.api.SCMSource;
 import org.jenkinsci.plugins.workflow.flow.DurabilityHintProvider;
 import org.jenkinsci.plugins.workflow.flow.FlowDurabilityHint;
@@ -21,6 +22,7 @@ import org.jenkinsci.Symbol;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import java.util.Optional;
 
@@ -28,8 +30,10 @@ import java.util.Optional;
  * Branch property so we can define per-branch durability policies, i.e. so feature branches aren't built durably but master is.
  * Also lets us set the durability level before the pipeline has run (a step ahead of the "properties" step).
  *
- * This implementation is designed so that each build will freshly evaluate the {@link FlowDurabilityHint} provided by {@link BranchPropertyStrategy}
+ * The {@link FlowDurabilityHint} is looked up from the {@link BranchPropertyStrategy} rather than copied onto the branch project,
  *  thus sidestepping issues with failing to update along with the BranchPropertyStrategy (JENKINS-48826).
+ * {@link WorkflowMultiBranchProject} caches the lookup, discarding it whenever its configuration is saved and after each indexing,
+ *  so a changed strategy applies from the next build without re-indexing.
  *
  * @author Sam Van Oort
  */
@@ -38,6 +42,8 @@ public class DurabilityHintBranchProperty extends BranchProperty {
 
     private final FlowDurabilityHint hint;
 
+    private boolean adaptive;
+
     public FlowDurabilityHint getHint() {
         return hint;
     }
@@ -47,6 +53,30 @@ public class DurabilityHintBranchProperty extends BranchProperty {
         this.hint = hint;
     }
 
+    /**
+     * Whether builds may use {@link FlowDurabilityHint#PERFORMANCE_OPTIMIZED} instead of {@link #getHint}
+     * while {@link DiskLatencyMonitor} reports the controller disk as saturated.
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    @DataBoundSetter
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * The hint to use right now, taking {@link #isAdaptive} into account.
+     */
+    @NonNull
+    FlowDurabilityHint getEffectiveHint() {
+        if (adaptive && hint != FlowDurabilityHint.PERFORMANCE_OPTIMIZED && DiskLatencyMonitor.isSaturated()) {
+            return FlowDurabilityHint.PERFORMANCE_OPTIMIZED;
+        }
+        return hint;
+    }
+
     /** No-op impl because we only care about the actual BranchProperty attached. */
     @Override
     public final <P extends Job<P, B>, B extends Run<P, B>> JobDecorator<P, B> jobDecorator(Class<P> clazz) {
@@ -77,7 +107,8 @@ public class DurabilityHintBranchProperty extends BranchProperty {
         }
 
         /**
-         * Dynamically fetch the property with each build, because the {@link BranchPropertyStrategy} does not re-evaluate.
+         * Look up the property from the current {@link BranchPropertyStrategy}, because the strategy does not re-evaluate existing branch projects.
+         * Cached per branch by {@link WorkflowMultiBranchProject} until its configuration is next saved or indexed.
          * @see <a href="https://issues.jenkins-ci.org/browse/JENKINS-48826">JENKINS-48826</a>
          */
         @CheckForNull
@@ -85,26 +116,36 @@ public class DurabilityHintBranchProperty extends BranchProperty {
         public FlowDurabilityHint suggestFor(@NonNull Item x) {
             // BranchJobProperty *should* be present if it's a child of a MultiBranchProject but we double-check for safety
             if (x instanceof WorkflowJob && x.getParent() instanceof MultiBranchProject && ((WorkflowJob)x).getProperty(BranchJobProperty.class) != null) {
-                MultiBranchProject mp = (MultiBranchProject) x.getParent();
-                WorkflowJob job = (WorkflowJob)x;
-                BranchJobProperty bjp = job.getProperty(BranchJobProperty.class);
-
-                String sourceId = bjp.getBranch().getSourceId();
-                if (sourceId != null) {
-                    SCMSource source = mp.getSCMSource(sourceId);
-                    if (source != null) {
-                        BranchPropertyStrategy bps = mp.getBranchPropertyStrategy(source);
-                        if (bps != null) {
-                            Optional<BranchProperty> props = bps.getPropertiesFor(bjp.getBranch().getHead()).stream().filter(
-                                    bp -> bp instanceof DurabilityHintBranchProperty
-                            ).findFirst();
-                            if (props.isPresent()) {
-                                return ((DurabilityHintBranchProperty)props.get()).getHint();
-                            }
+                BranchJobProperty branch = ((WorkflowJob) x).getProperty(BranchJobProperty.class);
+                DurabilityHintBranchProperty prop;
+                if (x.getParent() instanceof WorkflowMultiBranchProject) {
+                    prop = ((WorkflowMultiBranchProject) x.getParent()).getDurabilityHintProperty(branch.getSourceId(), branch.getHead());
+                } else {
+                    prop = resolve((MultiBranchProject) x.getParent(), branch.getSourceId(), branch.getHead());
+                }
+                return prop != null ? prop.getEffectiveHint() : null;
+            }
+            return null;
+        }
+
+        /**
+         * Finds the property configured by the {@link BranchPropertyStrategy} of the source of a branch.
+         */
+        @CheckForNull
+        static DurabilityHintBranchProperty resolve(@NonNull MultiBranchProject<?,?> mp, @CheckForNull String sourceId, @NonNull SCMHead head) {
+            if (sourceId != null) {
+                SCMSource source = mp.getSCMSource(sourceId);
+                if (source != null) {
+                    BranchPropertyStrategy bps = mp.getBranchPropertyStrategy(source);
+                    if (bps != null) {
+                        Optional<BranchProperty> props = bps.getPropertiesFor(head).stream().filter(
+                                bp -> bp instanceof DurabilityHintBranchProperty
+                        ).findFirst();
+                        if (props.isPresent()) {
+                            return (DurabilityHintBranchProperty) props.get();
                         }
                     }
                 }
-
             }
             return null;
         }
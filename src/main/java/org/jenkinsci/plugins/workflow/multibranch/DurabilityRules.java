@@ -0,0 +1,336 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.InvisibleAction;
+import hudson.model.Item;
+import hudson.model.listeners.RunListener;
+import hudson.util.FormValidation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import jenkins.model.GlobalConfiguration;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.mixin.ChangeRequestSCMHead;
+import jenkins.scm.api.mixin.TagSCMHead;
+import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.workflow.flow.DurabilityHintProvider;
+import org.jenkinsci.plugins.workflow.flow.FlowDurabilityHint;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Chooses the durability of branch project builds from the kind and name of the branch,
+ * for example running pull requests quickly and release branches durably.
+ * Rules are tried in order and the first match wins.
+ * They take effect only where nothing more specific, such as {@link DurabilityHintBranchProperty}, applies.
+ */
+@Extension @Symbol("branchDurabilityRules")
+public class DurabilityRules extends GlobalConfiguration {
+
+    private static final Logger LOGGER = Logger.getLogger(DurabilityRules.class.getName());
+
+    private List<Rule> rules = new ArrayList<>();
+
+    public DurabilityRules() {
+        load();
+    }
+
+    public static @NonNull DurabilityRules get() {
+        return ExtensionList.lookupSingleton(DurabilityRules.class);
+    }
+
+    public @NonNull List<Rule> getRules() {
+        return rules == null ? Collections.emptyList() : Collections.unmodifiableList(rules);
+    }
+
+    @DataBoundSetter
+    public void setRules(List<Rule> rules) {
+        this.rules = rules == null ? new ArrayList<>() : new ArrayList<>(rules);
+        save();
+    }
+
+    @Override public boolean configure(StaplerRequest2 req, JSONObject json) throws FormException {
+        setRules(null); // so that deleting the last rule works
+        req.bindJSON(this, json);
+        return true;
+    }
+
+    /**
+     * Finds the first rule matching a head.
+     */
+    @CheckForNull Rule match(@NonNull SCMHead head) {
+        for (Rule rule : getRules()) {
+            if (rule != null && rule.matches(head)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    @CheckForNull static SCMHead headOf(@NonNull Item item) {
+        if (item instanceof WorkflowJob && item.getParent() instanceof WorkflowMultiBranchProject) {
+            BranchJobProperty property = ((WorkflowJob) item).getProperty(BranchJobProperty.class);
+            if (property != null) {
+                return property.getHead();
+            }
+        }
+        return null;
+    }
+
+    /** Kinds of head a rule can match. */
+    public enum HeadType {
+        ANY("Any"), BRANCH("Branches"), CHANGE_REQUEST("Change requests"), TAG("Tags");
+
+        private final String description;
+
+        HeadType(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        boolean matches(SCMHead head) {
+            switch (this) {
+                case CHANGE_REQUEST:
+                    return head instanceof ChangeRequestSCMHead;
+                case TAG:
+                    return head instanceof TagSCMHead;
+                case BRANCH:
+                    return !(head instanceof ChangeRequestSCMHead) && !(head instanceof TagSCMHead);
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * Suggests a durability hint for heads of some kind whose name matches a regular expression.
+     */
+    public static final class Rule extends AbstractDescribableImpl<Rule> {
+
+        private final HeadType headType;
+        private final String pattern;
+        private final FlowDurabilityHint hint;
+        private transient Pattern compiled;
+        /** Set if the rule cannot be applied, in which case it never matches. */
+        private transient String problem;
+
+        @DataBoundConstructor
+        public Rule(HeadType headType, String pattern, @NonNull FlowDurabilityHint hint) {
+            this.headType = headType == null ? HeadType.ANY : headType;
+            this.pattern = Util.fixEmptyAndTrim(pattern);
+            this.hint = hint;
+            validate();
+        }
+
+        private Object readResolve() {
+            validate();
+            return this;
+        }
+
+        /**
+         * Checks a rule which may have been hand-edited or written by another version, so that one bad rule cannot prevent the others from loading.
+         */
+        private void validate() {
+            compiled = null;
+            problem = null;
+            if (headType == null) {
+                problem = "no head type";
+            } else if (hint == null) {
+                problem = "no durability hint";
+            } else if (pattern != null) {
+                try {
+                    compiled = Pattern.compile(pattern);
+                } catch (PatternSyntaxException x) {
+                    problem = "invalid pattern: " + x.getDescription();
+                }
+            }
+            if (problem != null) {
+                LOGGER.log(Level.WARNING, "Ignoring durability rule {0}: {1}", new Object[] {this, problem});
+            }
+        }
+
+        public HeadType getHeadType() {
+            return headType;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public FlowDurabilityHint getHint() {
+            return hint;
+        }
+
+        boolean matches(@NonNull SCMHead head) {
+            return problem == null && headType.matches(head) && (compiled == null || compiled.matcher(head.getName()).matches());
+        }
+
+        @Override public String toString() {
+            return (headType != null ? headType.getDescription() : "?") + (pattern != null ? " matching " + pattern : "") + " → " + (hint != null ? hint.getName() : "?");
+        }
+
+        @Extension public static final class DescriptorImpl extends Descriptor<Rule> {
+
+            @NonNull
+            @Override public String getDisplayName() {
+                return "Durability rule";
+            }
+
+            public FormValidation doCheckPattern(@QueryParameter String value) {
+                if (Util.fixEmptyAndTrim(value) == null) {
+                    return FormValidation.ok();
+                }
+                try {
+                    Pattern.compile(value.trim());
+                    return FormValidation.ok();
+                } catch (PatternSyntaxException x) {
+                    return FormValidation.error(x.getDescription());
+                }
+            }
+
+        }
+
+    }
+
+    /**
+     * Applies {@link DurabilityRules} to branch projects.
+     */
+    @Extension public static final class ProviderImpl implements DurabilityHintProvider {
+
+        /** Higher ordinal than {@link DurabilityHintBranchProperty}, since the lowest ordinal wins and explicit configuration should take precedence. */
+        @Override public int ordinal() {
+            return 300;
+        }
+
+        @CheckForNull
+        @Override public FlowDurabilityHint suggestFor(@NonNull Item x) {
+            SCMHead head = headOf(x);
+            if (head == null) {
+                return null;
+            }
+            Rule rule = get().match(head);
+            return rule != null ? rule.getHint() : null;
+        }
+
+    }
+
+    /**
+     * Records on a build which rule matched its branch, the hint the build was given, and whether that came from the rule.
+     */
+    @ExportedBean
+    public static final class AppliedAction extends InvisibleAction {
+
+        private final String rule;
+        private final FlowDurabilityHint ruleHint;
+        private final FlowDurabilityHint hint;
+        private final boolean effective;
+
+        AppliedAction(String rule, FlowDurabilityHint ruleHint, FlowDurabilityHint hint, boolean effective) {
+            this.rule = rule;
+            this.ruleHint = ruleHint;
+            this.hint = hint;
+            this.effective = effective;
+        }
+
+        /** Description of the matching rule. */
+        @Exported
+        public String getRule() {
+            return rule;
+        }
+
+        /** The hint suggested by the matching rule. */
+        @Exported
+        public FlowDurabilityHint getRuleHint() {
+            return ruleHint;
+        }
+
+        /** The hint resolved for the build, from whichever provider took precedence. */
+        @Exported
+        public FlowDurabilityHint getHint() {
+            return hint;
+        }
+
+        /** False if something more specific made a suggestion, even the same hint. */
+        @Exported
+        public boolean isEffective() {
+            return effective;
+        }
+
+    }
+
+    @Extension public static final class RunListenerImpl extends RunListener<WorkflowRun> {
+
+        @Override public void onInitialize(WorkflowRun run) {
+            WorkflowJob job = run.getParent();
+            SCMHead head = headOf(job);
+            if (head == null) {
+                return;
+            }
+            Rule rule = get().match(head);
+            if (rule != null) {
+                run.addAction(new AppliedAction(rule.toString(), rule.getHint(), DurabilityHintProvider.suggestedFor(job), !overridden(job)));
+            }
+        }
+
+        /**
+         * Whether a provider taking precedence over {@link ProviderImpl} has a suggestion,
+         * as {@link DurabilityHintProvider#suggestedFor} would prefer it even if it happened to suggest the same hint.
+         */
+        private static boolean overridden(@NonNull WorkflowJob job) {
+            int ordinal = ExtensionList.lookupSingleton(ProviderImpl.class).ordinal();
+            for (DurabilityHintProvider provider : ExtensionList.lookup(DurabilityHintProvider.class)) {
+                if (provider.ordinal() < ordinal && provider.suggestFor(job) != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Descriptor;
+import hudson.model.JobProperty;
+import hudson.model.ParametersDefinitionProperty;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import jenkins.model.BuildDiscarderProperty;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.structs.SymbolLookup;
+import org.jenkinsci.plugins.structs.describable.DescribableModel;
+import org.jenkinsci.plugins.workflow.job.properties.DisableConcurrentBuildsJobProperty;
+import org.jenkinsci.plugins.workflow.job.properties.DisableResumeJobProperty;
+import org.jenkinsci.plugins.workflow.job.properties.DurabilityHintJobProperty;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Reads job properties declared in a JSON file next to the script, without running or even parsing the script.
+ * The file holds a list of objects, each with a single key naming the symbol of a job property
+ * and whose value holds the arguments of that property, for example
+ * {@code [{"buildDiscarder": {"strategy": {"$class": "LogRotator", "numToKeepStr": "5"}}}, {"disableConcurrentBuilds": {}}]}.
+ * Only the properties in {@link #ALLOWED} may be declared, so that triggers and the like are still only set by a build.
+ */
+@Restricted(NoExternalUse.class)
+final class JobPropertiesExtractor {
+
+    /** Job properties which may be applied at indexing time. */
+    @SuppressWarnings("rawtypes")
+    static final Set<Class<? extends JobProperty>> ALLOWED = Set.of(
+            BuildDiscarderProperty.class,
+            DisableConcurrentBuildsJobProperty.class,
+            DisableResumeJobProperty.class,
+            DurabilityHintJobProperty.class,
+            ParametersDefinitionProperty.class);
+
+    private JobPropertiesExtractor() {}
+
+    /**
+     * Instantiates the job properties declared in a file.
+     * @param json the content of the file
+     * @return the declared properties
+     * @throws IOException if the file is malformed, or declares a property which is unknown or not {@linkplain #ALLOWED allowed}
+     */
+    @SuppressWarnings("rawtypes")
+    static @NonNull List<JobProperty> extract(@NonNull String json) throws IOException {
+        JSONArray declared;
+        try {
+            declared = JSONArray.fromObject(json);
+        } catch (JSONException x) {
+            throw new IOException("not a JSON list", x);
+        }
+        List<JobProperty> properties = new ArrayList<>();
+        for (Object element : declared) {
+            if (!(element instanceof JSONObject) || ((JSONObject) element).size() != 1) {
+                throw new IOException("expected an object with a single key but got " + element);
+            }
+            JSONObject entry = (JSONObject) element;
+            String symbol = (String) entry.keys().next();
+            Descriptor<?> descriptor = SymbolLookup.get().findDescriptor(JobProperty.class, symbol);
+            if (descriptor == null || !ALLOWED.contains(descriptor.clazz)) {
+                throw new IOException("‘" + symbol + "’ is not a job property which may be declared at indexing time");
+            }
+            Object arguments = toJava(entry.get(symbol));
+            if (!(arguments instanceof Map)) {
+                throw new IOException("expected the arguments of ‘" + symbol + "’ to be an object");
+            }
+            try {
+                @SuppressWarnings("unchecked") Map<String, Object> map = (Map<String, Object>) arguments;
+                properties.add((JobProperty) DescribableModel.of(descriptor.clazz).instantiate(map));
+            } catch (Exception x) {
+                throw new IOException("could not instantiate ‘" + symbol + "’", x);
+            }
+        }
+        return properties;
+    }
+
+    /** Converts the json-lib representation into plain collections as expected by {@link DescribableModel}. */
+    private static Object toJava(Object value) {
+        if (value instanceof JSONObject) {
+            if (((JSONObject) value).isNullObject()) {
+                return null;
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (Object key : ((JSONObject) value).keySet()) {
+                map.put((String) key, toJava(((JSONObject) value).get(key)));
+            }
+            return map;
+        } else if (value instanceof JSONArray) {
+            List<Object> list = new ArrayList<>();
+            for (Object element : (JSONArray) value) {
+                list.add(toJava(element));
+            }
+            return list;
+        } else if (value instanceof JSONNull) {
+            return null;
+        } else {
+            return value;
+        }
+    }
+
+}
@@ -24,21 +24,34 @@
 
 package org.jenkinsci.plugins.workflow.multibranch;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.AbortException;
 import hudson.BulkChange;
 import hudson.Extension;
 import hudson.ExtensionList;
+import hudson.Util;
 import hudson.model.Descriptor;
 import hudson.model.DescriptorVisibilityFilter;
+import hudson.model.Items;
 import hudson.model.Job;
 import hudson.model.JobProperty;
 import hudson.model.JobPropertyDescriptor;
 import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.triggers.Trigger;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -48,17 +61,22 @@ import java.util.logging.Logger;
 import jenkins.branch.BuildRetentionBranchProperty;
 import jenkins.branch.RateLimitBranchProperty;
 import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
 import net.sf.json.JSONObject;
 import org.jenkinsci.plugins.workflow.flow.FlowExecution;
 import org.jenkinsci.plugins.workflow.flow.FlowExecutionOwner;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.graph.StepNode;
 import org.jenkinsci.plugins.workflow.graphanalysis.DepthFirstScanner;
-import org.jenkinsci.plugins.workflow.graphanalysis.NodeStepTypePredicate;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.job.properties.PipelineTriggersJobProperty;
 import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
-import org.jenkinsci.plugins.workflow.steps.SynchronousStepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.DoNotUse;
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -90,7 +108,274 @@ public class JobPropertyStep extends Step {
         return new Execution(this, context);
     }
 
-    public static class Execution extends SynchronousStepExecution<Void> {
+    /** Maximum number of flow nodes to examine when checking whether an old build ran this step. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Just for scripting.")
+    public static int PREVIOUS_RUN_SCAN_LIMIT = SystemProperties.getInteger(JobPropertyStep.class.getName() + ".PREVIOUS_RUN_SCAN_LIMIT", 10000);
+
+    /**
+     * Checks whether a build ran this step, for jobs last built before {@link JobPropertyTrackerAction} was introduced.
+     * Gives up after {@link #PREVIOUS_RUN_SCAN_LIMIT} nodes, assuming that it did,
+     * since the script being run now calls {@code properties} and most likely did then too.
+     */
+    static boolean ranStep(@CheckForNull Run<?,?> run) {
+        if (!(run instanceof FlowExecutionOwner.Executable)) {
+            return false;
+        }
+        FlowExecutionOwner owner = ((FlowExecutionOwner.Executable) run).asFlowExecutionOwner();
+        if (owner == null) {
+            return false;
+        }
+        FlowExecution execution;
+        try {
+            execution = owner.get();
+        } catch (IOException ex) {
+            // May happen legitimately due to owner.get() throwing IOException when previous execution was nulled
+            LOGGER.log(Level.FINE, "Could not search for JobPropertyStep execution: previous run either had null execution due to legitimate error and shows as not-yet-started, or threw other IOException", ex);
+            return false;
+        }
+        if (execution == null) {
+            return false;
+        }
+        StepDescriptor descriptor = ExtensionList.lookupSingleton(DescriptorImpl.class);
+        DepthFirstScanner scanner = new DepthFirstScanner();
+        if (!scanner.setup(execution.getCurrentHeads())) {
+            return false;
+        }
+        int visited = 0;
+        while (scanner.hasNext()) {
+            if (++visited > PREVIOUS_RUN_SCAN_LIMIT) {
+                LOGGER.log(Level.INFO, "Gave up looking for the properties step in {0} after {1} nodes; assuming that it ran the step", new Object[] {run, PREVIOUS_RUN_SCAN_LIMIT});
+                return true;
+            }
+            FlowNode node = scanner.next();
+            if (node instanceof StepNode && descriptor.equals(((StepNode) node).getDescriptor())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Locks guarding the properties of each job, striped by full name.
+     * Builds of the same job calling this step concurrently apply their properties one at a time,
+     * so a build requesting the same properties as the one before it finds them {@linkplain JobPropertyTrackerAction#isUnchanged unchanged}
+     * and shares its save rather than repeating it.
+     */
+    private static final Object[] LOCKS = new Object[64];
+    static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    private static Object lockFor(Job<?,?> job) {
+        return LOCKS[Math.floorMod(job.getFullName().hashCode(), LOCKS.length)];
+    }
+
+    /**
+     * Replaces the properties previously set by this step, or by {@link WorkflowBranchProjectFactory} at indexing time, with new ones.
+     * @param job a job
+     * @param properties the requested properties
+     * @param previousCompletedBuild the build to inspect if the job has no {@link JobPropertyTrackerAction} yet
+     * @return false if the properties were unchanged, so the job was not saved
+     */
+    static boolean applyProperties(@NonNull Job<?,?> job, @NonNull List<JobProperty> properties, @CheckForNull Run<?,?> previousCompletedBuild) throws IOException {
+        synchronized (lockFor(job)) {
+            return doApplyProperties(job, properties, previousCompletedBuild);
+        }
+    }
+
+    /**
+     * Adds or replaces the given properties by descriptor, as declared outside the script by {@link WorkflowBranchProjectFactory},
+     * leaving every other property previously set by this step in place.
+     * Unlike {@link #applyProperties}, the given list is not taken to be the complete set of script-owned properties,
+     * so for example triggers set by the last build keep running.
+     * @param job a job
+     * @param declared the declared properties
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static void mergeProperties(@NonNull Job<?,?> job, @NonNull List<JobProperty> declared) throws IOException {
+        synchronized (lockFor(job)) {
+            List<JobProperty> merged = new ArrayList<>(declared);
+            JobPropertyTrackerAction tracker = job.getAction(JobPropertyTrackerAction.class);
+            if (tracker != null) {
+                Set<String> ids = new HashSet<>();
+                for (JobProperty prop : declared) {
+                    ids.add(prop.getDescriptor().getId());
+                }
+                for (JobProperty prop : job.getAllProperties()) {
+                    String id = prop.getDescriptor().getId();
+                    if (!(prop instanceof BranchJobProperty) && tracker.getJobPropertyDescriptors().contains(id) && !ids.contains(id)) {
+                        merged.add(prop);
+                    }
+                }
+            }
+            doApplyProperties(job, merged, null);
+        }
+    }
+
+    private static boolean doApplyProperties(Job<?,?> job, List<JobProperty> properties, @CheckForNull Run<?,?> previousCompletedBuild) throws IOException {
+        JobPropertyTrackerAction previousAction = job.getAction(JobPropertyTrackerAction.class);
+        boolean reconstructed = previousAction == null;
+        if (reconstructed) {
+            // Last built before the tracker existed. Check the previous completed build once, off the CPS VM thread;
+            // the result is persisted below along with the new tracker, so later builds never scan again.
+            previousAction = JobPropertyTrackerAction.reconstruct(job, previousCompletedBuild);
+        }
+        if (!reconstructed && previousAction.isUnchanged(properties) && isPresent(job, properties)) {
+            LOGGER.log(Level.FINE, "Properties of {0} are unchanged, skipping save", job.getFullName());
+            return false;
+        }
+        PipelineTriggersJobProperty requestedTriggers = null;
+        for (JobProperty prop : properties) {
+            if (prop instanceof PipelineTriggersJobProperty) {
+                requestedTriggers = (PipelineTriggersJobProperty) prop;
+            }
+        }
+        PipelineTriggersJobProperty retainedTriggers = null;
+        // Defaults managed by DefaultJobPropertiesBranchProperty which the script requests unchanged are left in place.
+        List<JobProperty> defaults = DefaultJobPropertiesBranchProperty.of(job);
+        Set<JobProperty> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        BulkChange bc = new BulkChange(job);
+        try {
+            for (JobProperty prop : job.getAllProperties()) {
+                if (prop instanceof BranchJobProperty) {
+                    // To be safe and avoid breaking everything if there's a corner case, we're explicitly ignoring
+                    // BranchJobProperty to make sure it gets preserved.
+                    continue;
+                }
+                JobProperty requested = sameAsDefault(prop, properties, defaults);
+                if (requested != null) {
+                    kept.add(requested);
+                    continue;
+                }
+                // If we have a record of JobPropertys defined via the properties step in the previous run, only
+                // remove those properties.
+                if (previousAction.getJobPropertyDescriptors().contains(prop.getDescriptor().getId()) || overridesDefault(prop, properties, defaults)) {
+                    if (prop instanceof PipelineTriggersJobProperty && requestedTriggers != null) {
+                        // Updated in place below, so that unchanged triggers keep running.
+                        retainedTriggers = (PipelineTriggersJobProperty) prop;
+                        continue;
+                    }
+                    job.removeProperty(prop);
+                }
+            }
+            for (JobProperty prop : properties) {
+                if (kept.contains(prop)) {
+                    continue;
+                } else if (prop == requestedTriggers && retainedTriggers != null) {
+                    updateTriggers(job, retainedTriggers, requestedTriggers);
+                } else {
+                    job.addProperty(prop);
+                }
+            }
+            for (JobProperty prop : defaults) {
+                if (job.getProperty(prop.getDescriptor()) == null) {
+                    // No longer overridden by the script.
+                    job.addProperty(DefaultJobPropertiesBranchProperty.copy(prop));
+                }
+            }
+            job.replaceAction(new JobPropertyTrackerAction(properties));
+            bc.commit();
+        } finally {
+            bc.abort();
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a property is a managed default which the script requests with the same value.
+     * @return the requested property, or null
+     */
+    private static @CheckForNull JobProperty sameAsDefault(JobProperty existing, List<JobProperty> properties, List<JobProperty> defaults) {
+        if (defaults.isEmpty()) {
+            return null;
+        }
+        String fingerprint = JobPropertyTrackerAction.fingerprint(existing);
+        for (JobProperty prop : defaults) {
+            if (prop.getDescriptor() == existing.getDescriptor() && fingerprint.equals(JobPropertyTrackerAction.fingerprint(prop))) {
+                for (JobProperty requested : properties) {
+                    if (requested.getDescriptor() == existing.getDescriptor() && fingerprint.equals(JobPropertyTrackerAction.fingerprint(requested))) {
+                        return requested;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the script requests a different value for a managed default.
+     */
+    private static boolean overridesDefault(JobProperty existing, List<JobProperty> properties, List<JobProperty> defaults) {
+        boolean managed = false;
+        for (JobProperty prop : defaults) {
+            managed |= prop.getDescriptor() == existing.getDescriptor();
+        }
+        if (managed) {
+            for (JobProperty requested : properties) {
+                if (requested.getDescriptor() == existing.getDescriptor()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the triggers of an existing property with those requested,
+     * stopping only triggers no longer requested and starting only new ones.
+     * Triggers are matched by their serialized form.
+     */
+    private static void updateTriggers(Job<?,?> job, PipelineTriggersJobProperty existing, PipelineTriggersJobProperty requested) {
+        List<Trigger<?>> remaining = new ArrayList<>(existing.getTriggers());
+        List<Trigger<?>> merged = new ArrayList<>();
+        List<Trigger<?>> started = new ArrayList<>();
+        REQUESTED: for (Trigger<?> trigger : requested.getTriggers()) {
+            String fingerprint = fingerprint(trigger);
+            for (Iterator<Trigger<?>> it = remaining.iterator(); it.hasNext();) {
+                Trigger<?> running = it.next();
+                if (fingerprint.equals(fingerprint(running))) {
+                    it.remove();
+                    merged.add(running);
+                    continue REQUESTED;
+                }
+            }
+            merged.add(trigger);
+            started.add(trigger);
+        }
+        for (Trigger<?> trigger : remaining) {
+            trigger.stop();
+        }
+        existing.setTriggers(merged);
+        for (Trigger trigger : started) {
+            trigger.start(job, Items.currentlyUpdatingByXml());
+        }
+        LOGGER.log(Level.FINE, "Triggers of {0}: {1} kept, {2} started, {3} stopped",
+                new Object[] {job.getFullName(), merged.size() - started.size(), started.size(), remaining.size()});
+    }
+
+    private static String fingerprint(Trigger<?> trigger) {
+        return Util.getDigestOf(Items.XSTREAM2.toXML(trigger));
+    }
+
+    /**
+     * Checks that the job still has a property of each requested kind, in case something else removed it.
+     */
+    private static boolean isPresent(Job<?,?> job, List<JobProperty> properties) {
+        Set<JobPropertyDescriptor> descriptors = new HashSet<>();
+        for (JobProperty prop : job.getAllProperties()) {
+            descriptors.add(prop.getDescriptor());
+        }
+        for (JobProperty prop : properties) {
+            if (!descriptors.contains(prop.getDescriptor())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static class Execution extends SynchronousNonBlockingStepExecution<Void> {
 
         private transient final JobPropertyStep step;
 
@@ -104,62 +389,16 @@ public class JobPropertyStep extends Step {
             Run<?,?> build = getContext().get(Run.class);
             Job<?,?> job = build.getParent();
 
-            JobPropertyTrackerAction previousAction = job.getAction(JobPropertyTrackerAction.class);
-            boolean previousHadStep = false;
-            if (previousAction == null) {
-                Run<?,?> previousRun = build.getPreviousCompletedBuild();
-                if (previousRun instanceof FlowExecutionOwner.Executable) {
-                    // If the job doesn't have the tracker action but does have a previous completed build,, check to
-                    // see if it ran the properties step. This is to deal with first run after this change is added.
-                    FlowExecutionOwner owner = ((FlowExecutionOwner.Executable) previousRun).asFlowExecutionOwner();
-
-                    if (owner != null) {
-                        try {
-                            FlowExecution execution = owner.get();
-                            if (execution != null) {
-                                previousHadStep = new DepthFirstScanner().findFirstMatch(execution,
-                                        new NodeStepTypePredicate(step.getDescriptor())) != null;
-                            }
-                        } catch (IOException ex) {
-                            // May happen legitimately due to owner.get() throwing IOException when previous execution was nulled
-                            LOGGER.log(Level.FINE, "Could not search for JobPropertyStep execution: previous run either had null execution due to legitimate error and shows as not-yet-started, or threw other IOException", ex);
-                        }
-                    }
-                }
-            }
-
             for (JobProperty prop : step.properties) {
                 if (!prop.getDescriptor().isApplicable(job.getClass())) {
                     throw new AbortException("cannot apply " + prop.getDescriptor().getId() + " to a " + job.getClass().getSimpleName());
                 }
             }
-            BulkChange bc = new BulkChange(job);
-            try {
-                for (JobProperty prop : job.getAllProperties()) {
-                    if (prop instanceof BranchJobProperty) {
-                        // To be safe and avoid breaking everything if there's a corner case, we're explicitly ignoring
-                        // BranchJobProperty to make sure it gets preserved.
-                        continue;
-                    }
-                    // If we have a record of JobPropertys defined via the properties step in the previous run, only
-                    // remove those properties.
-                    if (previousAction != null) {
-                        if (previousAction.getJobPropertyDescriptors().contains(prop.getDescriptor().getId())) {
-                            job.removeProperty(prop);
-                        }
-                    } else if (previousHadStep) {
-                        // If the previous run did not have the tracker action but *did* run the properties step, use
-                        // legacy behavior and remove everything.
-                        job.removeProperty(prop);
-                    }
+            if (!applyProperties(job, step.properties, build.getPreviousCompletedBuild())) {
+                TaskListener listener = getContext().get(TaskListener.class);
+                if (listener != null) {
+                    listener.getLogger().println("Job properties are unchanged since the last build; not saving " + job.getFullDisplayName());
                 }
-                for (JobProperty prop : step.properties) {
-                    job.addProperty(prop);
-                }
-                bc.commit();
-                job.replaceAction(new JobPropertyTrackerAction(step.properties));
-            } finally {
-                bc.abort();
             }
             return null;
         }
@@ -226,6 +465,60 @@ public class JobPropertyStep extends Step {
 
     }
 
+    /**
+     * Whether to record a {@link JobPropertyTrackerAction} for every branch project lacking one, in the background after startup,
+     * so that no build needs to inspect the flow graph of its predecessor.
+     * Off by default since it loads the last completed build of each such project;
+     * without it the tracker is reconstructed when a project next runs this step.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Just for scripting.")
+    public static boolean MIGRATE_TRACKERS = SystemProperties.getBoolean(JobPropertyStep.class.getName() + ".MIGRATE_TRACKERS", false);
+
+    /**
+     * Records a {@link JobPropertyTrackerAction} for branch projects which do not have one yet, if {@link #MIGRATE_TRACKERS} is set.
+     */
+    @Restricted(DoNotUse.class)
+    @Extension public static final class Migration extends ItemListener {
+
+        @Override public void onLoaded() {
+            if (MIGRATE_TRACKERS) {
+                Timer.get().submit(Migration::run);
+            }
+        }
+
+        static int run() {
+            int count = 0;
+            try (ACLContext context = ACL.as2(ACL.SYSTEM2)) {
+                for (WorkflowJob job : Jenkins.get().allItems(WorkflowJob.class)) {
+                    if (!(job.getParent() instanceof WorkflowMultiBranchProject) || job.getAction(JobPropertyTrackerAction.class) != null) {
+                        continue;
+                    }
+                    WorkflowRun lastCompleted = job.getLastCompletedBuild();
+                    if (lastCompleted == null) {
+                        continue;
+                    }
+                    try {
+                        synchronized (lockFor(job)) {
+                            if (job.getAction(JobPropertyTrackerAction.class) != null) {
+                                continue; // a build got there first
+                            }
+                            job.replaceAction(JobPropertyTrackerAction.reconstruct(job, lastCompleted));
+                            job.save();
+                        }
+                        count++;
+                    } catch (IOException | RuntimeException x) {
+                        LOGGER.log(Level.WARNING, "Could not record properties step tracking for " + job.getFullName(), x);
+                    }
+                }
+            }
+            if (count > 0) {
+                LOGGER.log(Level.INFO, "Recorded properties step tracking for {0} branch project(s)", count);
+            }
+            return count;
+        }
+
+    }
+
     @Extension public static class HideSuperfluousBranchProperties extends DescriptorVisibilityFilter {
 
         @Override public boolean filter(Object context, @NonNull Descriptor descriptor) {
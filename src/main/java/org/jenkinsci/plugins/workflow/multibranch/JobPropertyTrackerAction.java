@@ -1,13 +1,21 @@
 package org.jenkinsci.plugins.workflow.multibranch;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
 import hudson.model.Descriptor;
 import hudson.model.InvisibleAction;
+import hudson.model.Items;
+import hudson.model.Job;
 import hudson.model.JobProperty;
+import hudson.model.Run;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -20,9 +28,16 @@ public class JobPropertyTrackerAction extends InvisibleAction {
      */
     private final Set<String> jobPropertyDescriptors = new HashSet<>();
 
+    /**
+     * Digest of the XML form of each {@link JobProperty}, keyed by {@link Descriptor#getId()}.
+     * Null when loaded from an older version.
+     */
+    private final Map<String, String> fingerprints = new HashMap<>();
+
     public JobPropertyTrackerAction(@NonNull List<JobProperty> jobProperties) {
         for (JobProperty j : jobProperties) {
             jobPropertyDescriptors.add(j.getDescriptor().getId());
+            fingerprints.put(j.getDescriptor().getId(), fingerprint(j));
         }
     }
 
@@ -30,6 +45,48 @@ public class JobPropertyTrackerAction extends InvisibleAction {
         return Collections.unmodifiableSet(jobPropertyDescriptors);
     }
 
+    /**
+     * Checks whether a list of {@link JobProperty}s is the same as the one this action was created from.
+     * @param jobProperties properties requested by a later run
+     * @return true if each property has the same descriptor and serialized form as before
+     */
+    boolean isUnchanged(@NonNull List<JobProperty> jobProperties) {
+        if (fingerprints == null || jobPropertyDescriptors == null || fingerprints.size() != jobProperties.size()) {
+            return false;
+        }
+        for (JobProperty j : jobProperties) {
+            if (!fingerprint(j).equals(fingerprints.get(j.getDescriptor().getId()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reconstructs the tracker for a job last built before this action was introduced.
+     * If the given build ran the {@code properties} step, all properties except {@link BranchJobProperty} are assumed to
+     * have come from it, as was always the case before this action existed.
+     * @param job a job with no tracker
+     * @param previousRun the last completed build of the job, if any
+     * @return a tracker reflecting the properties previously set by the step, possibly none
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static @NonNull JobPropertyTrackerAction reconstruct(@NonNull Job<?,?> job, @CheckForNull Run<?,?> previousRun) {
+        List<JobProperty> properties = new ArrayList<>();
+        if (JobPropertyStep.ranStep(previousRun)) {
+            for (JobProperty p : job.getAllProperties()) {
+                if (!(p instanceof BranchJobProperty)) {
+                    properties.add(p);
+                }
+            }
+        }
+        return new JobPropertyTrackerAction(properties);
+    }
+
+    static String fingerprint(@NonNull JobProperty<?> jobProperty) {
+        return Util.getDigestOf(Items.XSTREAM2.toXML(jobProperty));
+    }
+
     @Override
     public String toString() {
         return "JobPropertyTrackerAction[jobPropertyDescriptors:" + jobPropertyDescriptors + "]";
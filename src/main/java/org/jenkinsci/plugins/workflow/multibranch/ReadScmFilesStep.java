@@ -0,0 +1,328 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.Descriptor;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import jenkins.scm.api.SCMFile;
+import jenkins.scm.api.SCMFileSystem;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest2;
+
+/**
+ * Resolves a branch as {@link ResolveScmStep} would and reads files from it at the resolved revision using
+ * {@link SCMFileSystem}, without checking anything out into a workspace.
+ */
+public class ReadScmFilesStep extends Step {
+
+    /**
+     * The {@link SCMSource}
+     */
+    @NonNull
+    private final SCMSource source;
+
+    /**
+     * The {@link SCMHead} names to try and resolve, in order of preference.
+     */
+    @NonNull
+    private final List<String> targets;
+
+    /**
+     * The paths, relative to the root of the repository, of the files to read.
+     */
+    @NonNull
+    private final List<String> paths;
+
+    /**
+     * If {@code true} then {@code null} will be returned in the event that none of the target branch names can be
+     * resolved.
+     */
+    private boolean ignoreErrors;
+
+    /**
+     * Constructor.
+     *
+     * @param source  The {@link SCMSource}
+     * @param targets The {@link SCMHead} names to try and resolve, in order of preference.
+     * @param paths   The paths of the files to read.
+     */
+    @DataBoundConstructor
+    public ReadScmFilesStep(@NonNull SCMSource source, @NonNull List<String> targets, @NonNull List<String> paths) {
+        this.source = source;
+        this.targets = new ArrayList<>(targets);
+        this.paths = new ArrayList<>(paths);
+    }
+
+    /**
+     * Gets the {@link SCMSource} to resolve from.
+     *
+     * @return the {@link SCMSource} to resolve from.
+     */
+    @NonNull
+    public SCMSource getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the {@link SCMHead} names to try and resolve.
+     *
+     * @return the {@link SCMHead} names to try and resolve.
+     */
+    @NonNull
+    public List<String> getTargets() {
+        return Collections.unmodifiableList(targets);
+    }
+
+    /**
+     * Gets the paths of the files to read.
+     *
+     * @return the paths of the files to read.
+     */
+    @NonNull
+    public List<String> getPaths() {
+        return Collections.unmodifiableList(paths);
+    }
+
+    /**
+     * Returns {@code true} if and only if errors will be ignored.
+     *
+     * @return {@code true} if and only if errors will be ignored.
+     */
+    public boolean isIgnoreErrors() {
+        return ignoreErrors;
+    }
+
+    /**
+     * Sets the error handling behaviour.
+     *
+     * @param ignoreErrors {@code true} if and only if errors will be ignored.
+     */
+    @DataBoundSetter
+    public void setIgnoreErrors(boolean ignoreErrors) {
+        this.ignoreErrors = ignoreErrors;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new Execution(context, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ReadScmFilesStep{" +
+                "source=" + source +
+                ", targets=" + targets +
+                ", paths=" + paths +
+                ", ignoreErrors=" + ignoreErrors +
+                '}';
+    }
+
+    /**
+     * Our {@link Descriptor}.
+     */
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Set<Class<?>> getRequiredContext() {
+            return Collections.singleton(TaskListener.class);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getFunctionName() {
+            return "readScmFiles";
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Reads files from the first matching branch of an SCM Source without a checkout";
+        }
+
+        @Override
+        public Step newInstance(@CheckForNull StaplerRequest2 req, @NonNull JSONObject formData)
+                throws FormException {
+            assert req != null : "see contract for method, it's never null but has to claim it could be";
+            List<String> paths = new ArrayList<>();
+            Object p = formData.get("paths");
+            if (p instanceof JSONObject) {
+                paths.add(((JSONObject) p).getString("path"));
+            } else if (p instanceof JSONArray) {
+                JSONArray a = (JSONArray) p;
+                for (int i = 0; i < a.size(); i++) {
+                    paths.add(a.getJSONObject(i).getString("path"));
+                }
+            }
+            ReadScmFilesStep step = new ReadScmFilesStep(ResolveScmStep.DescriptorImpl.bindSource(req, formData),
+                    ResolveScmStep.DescriptorImpl.bindTargets(formData), paths);
+            if (formData.optBoolean("ignoreErrors", false)) {
+                step.setIgnoreErrors(true);
+            }
+            return step;
+        }
+
+        public FormValidation doCheckTarget(@QueryParameter String value) {
+            if (value != null && !value.isBlank()) {
+                return FormValidation.ok();
+            }
+            return FormValidation.error("You must supply a target branch name to resolve");
+        }
+
+        public FormValidation doCheckPath(@QueryParameter String value) {
+            if (value != null && !value.isBlank()) {
+                return FormValidation.ok();
+            }
+            return FormValidation.error("You must supply a path to read");
+        }
+    }
+
+    /**
+     * Our {@link StepExecution}.
+     */
+    public static class Execution extends SynchronousNonBlockingStepExecution<Map<String, String>> {
+
+        /**
+         * Ensure consistent serialization.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The {@link SCMSource}
+         */
+        @NonNull
+        private transient final SCMSource source;
+
+        /**
+         * The {@link SCMHead} names to try and resolve, in order of preference.
+         */
+        @NonNull
+        private final List<String> targets;
+
+        /**
+         * The paths of the files to read.
+         */
+        @NonNull
+        private final List<String> paths;
+
+        /**
+         * If {@code true} then {@code null} will be returned in the event that none of the target branch names can be
+         * resolved.
+         */
+        private final boolean ignoreErrors;
+
+        /**
+         * Our constructor.
+         *
+         * @param context the context.
+         * @param step    the step.
+         */
+        Execution(StepContext context, ReadScmFilesStep step) {
+            super(context);
+            this.source = step.getSource();
+            this.targets = new ArrayList<>(step.getTargets());
+            this.paths = new ArrayList<>(step.getPaths());
+            this.ignoreErrors = step.isIgnoreErrors();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected Map<String, String> run() throws Exception {
+            StepContext context = getContext();
+            TaskListener listener = context.get(TaskListener.class);
+            assert listener != null;
+            Run<?, ?> run = context.get(Run.class);
+            PrintStream out = listener.getLogger();
+            out.printf("Checking for first existing branch from %s...%n", targets);
+            SCMRevision fetch = ResolveScmStep.resolve(source, targets, run == null ? null : run.getParent(), listener);
+            if (fetch == null) {
+                if (ignoreErrors) {
+                    out.println("Could not find any matching branch");
+                    return null;
+                }
+                throw new AbortException("Could not find any matching branch");
+            }
+            out.printf("Found %s at revision %s%n", fetch.getHead().getName(), fetch);
+            try (SCMFileSystem fs = SCMFileSystem.of(source, fetch.getHead(), fetch)) {
+                if (fs == null) {
+                    throw new AbortException("The source does not support reading files without a checkout; use resolveScm and checkout instead");
+                }
+                Map<String, String> contents = new LinkedHashMap<>();
+                for (String path : paths) {
+                    SCMFile file = fs.child(path);
+                    if (!file.isFile()) {
+                        throw new AbortException(path + " not found in " + fetch.getHead().getName());
+                    }
+                    contents.put(path, file.contentAsString());
+                    out.println("Obtained " + path + " from " + fetch);
+                }
+                return contents;
+            }
+        }
+
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Item;
+import hudson.model.Items;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.api.SCMEventListener;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Remembers recent results of {@link ResolveScmStep} so that builds of the same job asking the same question of the same
+ * repository within a short window share one pinned revision without contacting the SCM again.
+ * Results are never shared between jobs, since each may see different credentials.
+ * Disabled unless {@link #TTL} is set.
+ */
+@Restricted(NoExternalUse.class)
+public final class ResolveScmCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ResolveScmCache.class.getName());
+
+    /** How long, in milliseconds, a resolution may be reused. Zero (the default) disables the cache. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Just for scripting.")
+    public static long TTL = SystemProperties.getLong(ResolveScmCache.class.getName() + ".TTL", 0L);
+
+    /** Maximum number of resolutions to remember; the least recently used are dropped first. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Just for scripting.")
+    public static int MAX_ENTRIES = SystemProperties.getInteger(ResolveScmCache.class.getName() + ".MAX_ENTRIES", 1000);
+
+    private static final Map<Key, Entry> ENTRIES = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static final AtomicLong HITS = new AtomicLong();
+
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private ResolveScmCache() {}
+
+    /**
+     * Looks up a recent resolution.
+     *
+     * @param source  the {@link SCMSource} being resolved.
+     * @param targets the target branch names, in order of preference.
+     * @param context the {@link Item} on whose behalf the lookup is made, if any.
+     * @return the revision resolved earlier for the same item, or {@code null} if there is none which is still fresh.
+     */
+    @CheckForNull
+    static SCMRevision get(@NonNull SCMSource source, @NonNull List<String> targets, @CheckForNull Item context) {
+        if (TTL <= 0) {
+            return null;
+        }
+        Key key = new Key(source, targets, context);
+        synchronized (ENTRIES) {
+            Entry entry = ENTRIES.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.timestamp < TTL) {
+                HITS.incrementAndGet();
+                return entry.revision;
+            }
+            if (entry != null) {
+                ENTRIES.remove(key);
+            }
+        }
+        MISSES.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Records a resolution.
+     *
+     * @param source   the {@link SCMSource} which was resolved.
+     * @param targets  the target branch names, in order of preference.
+     * @param context  the {@link Item} on whose behalf the lookup was made, if any.
+     * @param revision the revision of the first existing target.
+     */
+    static void put(@NonNull SCMSource source, @NonNull List<String> targets, @CheckForNull Item context, @NonNull SCMRevision revision) {
+        if (TTL <= 0) {
+            return;
+        }
+        Key key = new Key(source, targets, context);
+        synchronized (ENTRIES) {
+            ENTRIES.put(key, new Entry(source, revision, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return the number of hits since startup.
+     */
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    /**
+     * Gets the number of lookups which had to contact the SCM.
+     *
+     * @return the number of misses since startup.
+     */
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    /**
+     * Gets the proportion of lookups answered from the cache.
+     *
+     * @return a value between 0 and 1.
+     */
+    public static double getHitRate() {
+        long hits = HITS.get();
+        long total = hits + MISSES.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Forgets all resolutions.
+     */
+    public static void clear() {
+        synchronized (ENTRIES) {
+            ENTRIES.clear();
+        }
+    }
+
+    /**
+     * Identifies a source by its configuration rather than its ID, which is typically random for inline sources
+     * such as {@code resolveScm source: git(…)}, together with the ordered target names
+     * and the item making the lookup, whose credentials the source is resolved with.
+     */
+    private static final class Key {
+
+        private final String source;
+        private final List<String> targets;
+        private final @CheckForNull String context;
+
+        Key(SCMSource source, List<String> targets, @CheckForNull Item context) {
+            String id = source.getId();
+            this.source = Items.XSTREAM2.toXML(source).replace("<id>" + Util.xmlEscape(id) + "</id>", "");
+            this.targets = new ArrayList<>(targets);
+            this.context = context == null ? null : context.getFullName();
+        }
+
+        @Override public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return source.equals(other.source) && targets.equals(other.targets) && Objects.equals(context, other.context);
+        }
+
+        @Override public int hashCode() {
+            return (source.hashCode() * 31 + targets.hashCode()) * 31 + Objects.hashCode(context);
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final SCMSource source;
+        private final SCMRevision revision;
+        private final long timestamp;
+
+        Entry(SCMSource source, SCMRevision revision, long timestamp) {
+            this.source = source;
+            this.revision = revision;
+            this.timestamp = timestamp;
+        }
+
+    }
+
+    /**
+     * Forgets resolutions from a repository whenever heads there are created, updated or removed.
+     */
+    @Extension public static class ListenerImpl extends SCMEventListener {
+
+        @Override public void onSCMHeadEvent(SCMHeadEvent<?> event) {
+            synchronized (ENTRIES) {
+                for (Iterator<Entry> it = ENTRIES.values().iterator(); it.hasNext(); ) {
+                    Entry entry = it.next();
+                    try {
+                        if (event.isMatch(entry.source)) {
+                            it.remove();
+                        }
+                    } catch (RuntimeException x) {
+                        LOGGER.log(Level.FINE, "could not match " + event + " against " + entry.source, x);
+                        it.remove();
+                    }
+                }
+            }
+        }
+
+    }
+
+}
@@ -29,10 +29,14 @@ import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.AbortException;
 import hudson.Extension;
+import hudson.Util;
 import hudson.model.Descriptor;
+import hudson.model.Item;
+import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.scm.SCM;
 import hudson.util.FormValidation;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -188,9 +192,33 @@ public class ResolveScmStep extends Step {
                 throws FormException {
             assert req != null : "see contract for method, it's never null but has to claim it could be";
             // roll our own because we want the groovy api to be easier than the jelly form binding would have us
+            ResolveScmStep step = new ResolveScmStep(bindSource(req, formData), bindTargets(formData));
+            if (formData.optBoolean("ignoreErrors", false)) {
+                step.setIgnoreErrors(true);
+            }
+            return step;
+        }
+
+        /**
+         * Binds the {@code source} of a form.
+         *
+         * @param req      the request.
+         * @param formData the form data.
+         * @return the {@link SCMSource}.
+         */
+        static SCMSource bindSource(@NonNull StaplerRequest2 req, @NonNull JSONObject formData) {
             JSONObject src = formData.getJSONObject("source");
             src.put("id", "_");
-            SCMSource source = req.bindJSON(SCMSource.class, src);
+            return req.bindJSON(SCMSource.class, src);
+        }
+
+        /**
+         * Binds the {@code targets} of a form.
+         *
+         * @param formData the form data.
+         * @return the target branch names.
+         */
+        static List<String> bindTargets(@NonNull JSONObject formData) {
             List<String> targets = new ArrayList<>();
             // TODO JENKINS-27901 use standard control when available
             Object t = formData.get("targets");
@@ -204,11 +232,7 @@ public class ResolveScmStep extends Step {
                     targets.add(o.getString("target"));
                 }
             }
-            ResolveScmStep step = new ResolveScmStep(source, targets);
-            if (formData.optBoolean("ignoreErrors", false)) {
-                step.setIgnoreErrors(true);
-            }
-            return step;
+            return targets;
         }
 
         public FormValidation doCheckTarget(@QueryParameter String value) {
@@ -268,9 +292,10 @@ public class ResolveScmStep extends Step {
             StepContext context = getContext();
             TaskListener listener = context.get(TaskListener.class);
             assert listener != null;
+            Run<?, ?> run = context.get(Run.class);
             PrintStream out = listener.getLogger();
             out.printf("Checking for first existing branch from %s...%n", targets);
-            SCMRevision fetch = source.fetch(new ObserverImpl(targets), listener).result();
+            SCMRevision fetch = resolve(source, targets, run == null ? null : run.getParent(), listener);
             if (fetch == null) {
                 if (ignoreErrors) {
                     out.println("Could not find any matching branch");
@@ -284,6 +309,87 @@ public class ResolveScmStep extends Step {
 
     }
 
+    /**
+     * Finds the revision of the first of the target branch names which exists in a source.
+     * Each name is looked up directly, in priority order, when the source supports that,
+     * and a match is only accepted once a scan limited to that head reports it, so that the head filters of the source still apply;
+     * otherwise the heads of the source are scanned until the preferred candidate is found.
+     * A recent answer to the same question may be reused; see {@link ResolveScmCache}.
+     *
+     * @param source   the {@link SCMSource} to resolve from.
+     * @param targets  the {@link SCMHead#getName()} candidates, in order of preference.
+     * @param context  the {@link Item} on whose behalf the lookup is made, if any.
+     * @param listener the listener.
+     * @return the revision of the first existing target, or {@code null} if none exist.
+     * @throws IOException          if the source could not be queried.
+     * @throws InterruptedException if interrupted.
+     */
+    @CheckForNull
+    static SCMRevision resolve(@NonNull SCMSource source, @NonNull List<String> targets, @CheckForNull Item context,
+                               @NonNull TaskListener listener) throws IOException, InterruptedException {
+        PrintStream out = listener.getLogger();
+        SCMRevision cached = ResolveScmCache.get(source, targets, context);
+        if (cached != null) {
+            out.printf("Reusing recent resolution (cache hits %d, misses %d, hit rate %.0f%%)%n", ResolveScmCache.getHits(), ResolveScmCache.getMisses(), 100 * ResolveScmCache.getHitRate());
+            return cached;
+        }
+        SCMRevision revision = doResolve(source, targets, context, listener);
+        if (revision != null) {
+            ResolveScmCache.put(source, targets, context, revision);
+        }
+        if (ResolveScmCache.TTL > 0) {
+            out.printf("Resolved from the SCM (cache hits %d, misses %d, hit rate %.0f%%)%n", ResolveScmCache.getHits(), ResolveScmCache.getMisses(), 100 * ResolveScmCache.getHitRate());
+        }
+        return revision;
+    }
+
+    @CheckForNull
+    private static SCMRevision doResolve(@NonNull SCMSource source, @NonNull List<String> targets, @CheckForNull Item context,
+                                         @NonNull TaskListener listener) throws IOException, InterruptedException {
+        PrintStream out = listener.getLogger();
+        if (isNamedLookupSupported(source)) {
+            int visited = 0;
+            int confirmed = 0;
+            try {
+                for (String target : targets) {
+                    if (target == null || target.isBlank()) {
+                        continue;
+                    }
+                    visited++;
+                    SCMRevision revision = source.fetch(target, listener, context);
+                    if (revision != null && target.equals(revision.getHead().getName())) {
+                        // A named lookup bypasses the head filters of the source traits, so only accept heads a scan would report.
+                        ObserverImpl observer = source.fetch(new ObserverImpl(Collections.singletonList(target), Collections.singleton(revision.getHead())), listener);
+                        confirmed += observer.visited;
+                        SCMRevision result = observer.result();
+                        if (result != null) {
+                            return result;
+                        }
+                        out.printf("Ignoring %s which is excluded by the source%n", target);
+                    }
+                }
+                return null;
+            } finally {
+                out.printf("Looked up %d head(s) by name and visited %d head(s)%n", visited, confirmed);
+            }
+        }
+        ObserverImpl observer = source.fetch(new ObserverImpl(targets, null), listener);
+        out.printf("Visited %d head(s)%n", observer.visited);
+        return observer.result();
+    }
+
+    /**
+     * Checks whether a source can look up a head by name without enumerating all of its heads.
+     *
+     * @param source the {@link SCMSource}.
+     * @return {@code true} if the source overrides the named variant of {@link SCMSource#fetch(String, TaskListener, Item)}.
+     */
+    private static boolean isNamedLookupSupported(@NonNull SCMSource source) {
+        Class<? extends SCMSource> clazz = source.getClass();
+        return Util.isOverridden(SCMSource.class, clazz, "retrieve", String.class, TaskListener.class, Item.class)
+                || Util.isOverridden(SCMSource.class, clazz, "retrieve", String.class, TaskListener.class);
+    }
+
     /**
      * An observer that collects the {@link SCMRevision} of a named {@link SCMHead} from a list of priority
      * candidates and stops observing when the preferred candidate is found.
@@ -294,13 +400,26 @@ public class ResolveScmStep extends Step {
          */
         private final Map<String, SCMRevision> revision = new LinkedHashMap<>();
 
+        /**
+         * The heads the source may restrict its scan to, if known.
+         */
+        @CheckForNull
+        private final Set<SCMHead> includes;
+
+        /**
+         * The number of heads observed so far.
+         */
+        private int visited;
+
         /**
          * Constructor.
          *
-         * @param heads the {@link SCMHead#getName()} to get the {@link SCMRevision} of.
+         * @param heads    the {@link SCMHead#getName()} to get the {@link SCMRevision} of.
+         * @param includes the heads the source may restrict its scan to, or {@code null} to scan all heads.
          */
-        public ObserverImpl(@NonNull List<String> heads) {
+        public ObserverImpl(@NonNull List<String> heads, @CheckForNull Set<SCMHead> includes) {
             heads.getClass(); // fail fast if null
+            this.includes = includes;
             for (String head : heads) {
                 if (head != null && !head.isBlank()) {
                     revision.put(head, null);
@@ -328,11 +447,21 @@ public class ResolveScmStep extends Step {
          */
         @Override
         public void observe(@NonNull SCMHead head, @NonNull SCMRevision revision) {
+            visited++;
             if (this.revision.containsKey(head.getName())) {
                 this.revision.put(head.getName(), revision);
             }
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @CheckForNull
+        @Override
+        public Set<SCMHead> getIncludes() {
+            return includes;
+        }
+
         /**
          * {@inheritDoc}
          */
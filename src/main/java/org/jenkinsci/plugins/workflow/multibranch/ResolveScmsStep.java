@@ -0,0 +1,470 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.Item;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.scm.SCM;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.FormValidation;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Resolves several {@link SCM}s at once, each as {@link ResolveScmStep} would, with a bounded number running concurrently.
+ */
+public class ResolveScmsStep extends Step {
+
+    /**
+     * The default number of entries to resolve concurrently.
+     */
+    static final int DEFAULT_PARALLELISM = 4;
+
+    /**
+     * The sources and targets to resolve.
+     */
+    @NonNull
+    private final List<Entry> entries;
+
+    /**
+     * The maximum number of entries to resolve concurrently.
+     */
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /**
+     * Constructor.
+     *
+     * @param entries the sources and targets to resolve.
+     */
+    @DataBoundConstructor
+    public ResolveScmsStep(@NonNull List<Entry> entries) {
+        this.entries = new ArrayList<>(entries);
+    }
+
+    /**
+     * Gets the sources and targets to resolve.
+     *
+     * @return the sources and targets to resolve.
+     */
+    @NonNull
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Gets the maximum number of entries to resolve concurrently.
+     *
+     * @return the maximum number of entries to resolve concurrently.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the maximum number of entries to resolve concurrently.
+     *
+     * @param parallelism the maximum number of entries to resolve concurrently.
+     */
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new Execution(context, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ResolveScmsStep{" +
+                "entries=" + entries +
+                ", parallelism=" + parallelism +
+                '}';
+    }
+
+    /**
+     * One source to resolve and its candidate target branch names.
+     */
+    public static class Entry extends AbstractDescribableImpl<Entry> {
+
+        /**
+         * The {@link SCMSource}
+         */
+        @NonNull
+        private final SCMSource source;
+
+        /**
+         * The {@link SCMHead} names to try and resolve, in order of preference.
+         */
+        @NonNull
+        private final List<String> targets;
+
+        /**
+         * If {@code true} then {@code null} will be returned for this entry in the event that none of the target
+         * branch names can be resolved.
+         */
+        private boolean ignoreErrors;
+
+        /**
+         * Constructor.
+         *
+         * @param source  The {@link SCMSource}
+         * @param targets The {@link SCMHead} names to try and resolve, in order of preference.
+         */
+        @DataBoundConstructor
+        public Entry(@NonNull SCMSource source, @NonNull List<String> targets) {
+            this.source = source;
+            this.targets = new ArrayList<>(targets);
+        }
+
+        /**
+         * Gets the {@link SCMSource} to resolve from.
+         *
+         * @return the {@link SCMSource} to resolve from.
+         */
+        @NonNull
+        public SCMSource getSource() {
+            return source;
+        }
+
+        /**
+         * Gets the {@link SCMHead} names to try and resolve.
+         *
+         * @return the {@link SCMHead} names to try and resolve.
+         */
+        @NonNull
+        public List<String> getTargets() {
+            return Collections.unmodifiableList(targets);
+        }
+
+        /**
+         * Returns {@code true} if and only if errors will be ignored for this entry.
+         *
+         * @return {@code true} if and only if errors will be ignored for this entry.
+         */
+        public boolean isIgnoreErrors() {
+            return ignoreErrors;
+        }
+
+        /**
+         * Sets the error handling behaviour for this entry.
+         *
+         * @param ignoreErrors {@code true} if and only if errors will be ignored for this entry.
+         */
+        @DataBoundSetter
+        public void setIgnoreErrors(boolean ignoreErrors) {
+            this.ignoreErrors = ignoreErrors;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "source=" + source +
+                    ", targets=" + targets +
+                    ", ignoreErrors=" + ignoreErrors +
+                    '}';
+        }
+
+        /**
+         * Our {@link Descriptor}.
+         */
+        @Extension
+        public static class DescriptorImpl extends Descriptor<Entry> {
+
+            /**
+             * {@inheritDoc}
+             */
+            @NonNull
+            @Override
+            public String getDisplayName() {
+                return "Source and candidate target branch names";
+            }
+
+            @Override
+            public Entry newInstance(@CheckForNull StaplerRequest2 req, @NonNull JSONObject formData) throws FormException {
+                assert req != null : "see contract for method, it's never null but has to claim it could be";
+                Entry entry = new Entry(ResolveScmStep.DescriptorImpl.bindSource(req, formData),
+                        ResolveScmStep.DescriptorImpl.bindTargets(formData));
+                if (formData.optBoolean("ignoreErrors", false)) {
+                    entry.setIgnoreErrors(true);
+                }
+                return entry;
+            }
+
+            public FormValidation doCheckTarget(@QueryParameter String value) {
+                if (value != null && !value.isBlank()) {
+                    return FormValidation.ok();
+                }
+                return FormValidation.error("You must supply a target branch name to resolve");
+            }
+        }
+    }
+
+    /**
+     * Our {@link Descriptor}.
+     */
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Set<Class<?>> getRequiredContext() {
+            return Collections.singleton(TaskListener.class);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getFunctionName() {
+            return "resolveScms";
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Resolves several SCMs, each from an SCM Source and a list of candidate target branch names";
+        }
+
+        @Override
+        public Step newInstance(@CheckForNull StaplerRequest2 req, @NonNull JSONObject formData)
+                throws FormException {
+            assert req != null : "see contract for method, it's never null but has to claim it could be";
+            // Stapler would not call back into Entry.DescriptorImpl.newInstance for the nested objects (JENKINS-31458)
+            Entry.DescriptorImpl d = Jenkins.get().getDescriptorByType(Entry.DescriptorImpl.class);
+            List<Entry> entries = new ArrayList<>();
+            Object e = formData.get("entries");
+            if (e instanceof JSONObject) {
+                entries.add(d.newInstance(req, (JSONObject) e));
+            } else if (e instanceof JSONArray) {
+                JSONArray a = (JSONArray) e;
+                for (int i = 0; i < a.size(); i++) {
+                    entries.add(d.newInstance(req, a.getJSONObject(i)));
+                }
+            }
+            ResolveScmsStep step = new ResolveScmsStep(entries);
+            step.setParallelism(formData.optInt("parallelism", DEFAULT_PARALLELISM));
+            return step;
+        }
+    }
+
+    /**
+     * Our {@link StepExecution}.
+     */
+    public static class Execution extends SynchronousNonBlockingStepExecution<List<SCM>> {
+
+        /**
+         * Ensure consistent serialization.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The threads shared by all {@code resolveScms} steps; each step uses at most its own parallelism of them.
+         */
+        private static final ExecutorService POOL;
+
+        static {
+            int threads = SystemProperties.getInteger(ResolveScmsStep.class.getName() + ".THREADS", 8);
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "ResolveScmsStep"));
+            pool.allowCoreThreadTimeOut(true);
+            POOL = pool;
+        }
+
+        /**
+         * The sources and targets to resolve.
+         */
+        @NonNull
+        private transient final List<Entry> entries;
+
+        /**
+         * The maximum number of entries to resolve concurrently.
+         */
+        private final int parallelism;
+
+        /**
+         * Our constructor.
+         *
+         * @param context the context.
+         * @param step    the step.
+         */
+        Execution(StepContext context, ResolveScmsStep step) {
+            super(context);
+            this.entries = new ArrayList<>(step.getEntries());
+            this.parallelism = step.getParallelism();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected List<SCM> run() throws Exception {
+            StepContext context = getContext();
+            TaskListener listener = context.get(TaskListener.class);
+            assert listener != null;
+            Run<?, ?> run = context.get(Run.class);
+            Item item = run == null ? null : run.getParent();
+            List<SCM> result = new ArrayList<>();
+            if (entries.isEmpty()) {
+                return result;
+            }
+            Authentication auth = Jenkins.getAuthentication2();
+            SCM[] resolved = new SCM[entries.size()];
+            AtomicInteger next = new AtomicInteger();
+            List<Future<Void>> workers = new ArrayList<>();
+            try {
+                // Each worker takes the next entry until none are left, so at most parallelism entries run at once.
+                for (int i = 0; i < Math.min(parallelism, entries.size()); i++) {
+                    workers.add(POOL.submit(() -> {
+                        for (int index = next.getAndIncrement(); index < entries.size(); index = next.getAndIncrement()) {
+                            resolved[index] = resolve(index, entries.get(index), item, listener, auth);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<Void> worker : workers) {
+                    try {
+                        worker.get();
+                    } catch (ExecutionException x) {
+                        Throwable cause = x.getCause();
+                        if (cause instanceof Exception) {
+                            throw (Exception) cause;
+                        }
+                        throw x;
+                    }
+                }
+            } finally {
+                next.set(entries.size());
+                for (Future<Void> worker : workers) {
+                    worker.cancel(true);
+                }
+            }
+            Collections.addAll(result, resolved);
+            return result;
+        }
+
+        /**
+         * Resolves one entry, printing its output to the build log in one piece once it is done.
+         */
+        @CheckForNull
+        private static SCM resolve(int index, @NonNull Entry entry, @CheckForNull Item item, @NonNull TaskListener listener,
+                                   @NonNull Authentication auth) throws Exception {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            TaskListener entryListener = new StreamTaskListener(buffer, StandardCharsets.UTF_8);
+            PrintStream out = entryListener.getLogger();
+            long start = System.nanoTime();
+            try (ACLContext ctx = ACL.as2(auth)) {
+                out.printf("[%d] Checking for first existing branch from %s...%n", index, entry.getTargets());
+                SCMRevision fetch;
+                try {
+                    fetch = ResolveScmStep.resolve(entry.getSource(), entry.getTargets(), item, entryListener);
+                } catch (IOException | RuntimeException x) {
+                    if (!entry.isIgnoreErrors()) {
+                        throw x;
+                    }
+                    out.printf("[%d] Could not resolve: %s (%d ms)%n", index, x,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    return null;
+                }
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (fetch == null) {
+                    if (entry.isIgnoreErrors()) {
+                        out.printf("[%d] Could not find any matching branch (%d ms)%n", index, elapsed);
+                        return null;
+                    }
+                    throw new AbortException(String.format("[%d] Could not find any matching branch from %s",
+                            index, entry.getTargets()));
+                }
+                out.printf("[%d] Found %s at revision %s (%d ms)%n", index, fetch.getHead().getName(), fetch, elapsed);
+                return entry.getSource().build(fetch.getHead(), fetch);
+            } finally {
+                out.flush();
+                PrintStream log = listener.getLogger();
+                synchronized (log) {
+                    buffer.writeTo(log);
+                    log.flush();
+                }
+            }
+        }
+
+    }
+}
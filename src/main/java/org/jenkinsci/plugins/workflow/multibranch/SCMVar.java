@@ -24,17 +24,34 @@
 
 package org.jenkinsci.plugins.workflow.multibranch;
 
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.thoughtworks.xstream.converters.Converter;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.AbortException;
 import hudson.Extension;
+import hudson.Util;
+import hudson.XmlFile;
 import hudson.model.ItemGroup;
+import hudson.model.Items;
 import hudson.model.Job;
+import hudson.model.Queue;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
 import hudson.scm.SCM;
 import hudson.util.DescribableList;
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import jenkins.branch.Branch;
 import jenkins.model.Jenkins;
 import jenkins.scm.api.SCMHead;
@@ -58,6 +75,20 @@ import org.jenkinsci.plugins.workflow.support.pickles.XStreamPickle;
  */
 @Extension public class SCMVar extends GlobalVariable {
 
+    private static final Logger LOGGER = Logger.getLogger(SCMVar.class.getName());
+
+    /**
+     * The {@code scm} lookups done for each running build, so that repeated references do not redo them.
+     * Keyed weakly by build so entries disappear along with the build.
+     */
+    private static final Map<Run<?,?>, Memo> MEMOS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** Number of times {@code scm} was resolved from the branch project rather than from {@link #MEMOS}. */
+    static final AtomicInteger RESOLUTIONS = new AtomicInteger();
+
+    /** The build directory of each {@code scm} value of a multibranch build, compared by identity. */
+    private static final Map<SCM, File> PICKLABLE = new MapMaker().weakKeys().makeMap();
+
     @NonNull
     @Override public String getName() {
         return "scm";
@@ -66,6 +97,11 @@ import org.jenkinsci.plugins.workflow.support.pickles.XStreamPickle;
     @NonNull
     @Override public SCM getValue(@NonNull CpsScript script) throws Exception {
         Run<?,?> build = script.$build();
+        SCMRevisionAction revisionAction = build.getAction(SCMRevisionAction.class);
+        Memo memo = MEMOS.get(build);
+        if (memo != null && revisionAction != null && memo.revision.equals(revisionAction.getRevision())) {
+            return memo.scm;
+        }
         // TODO some code overlap with SCMBinder.create, but not obvious how to factor out common parts
         if (!(build instanceof WorkflowRun)) {
             throw new AbortException("‘checkout scm’ is not available outside a Pipeline build");
@@ -94,7 +130,6 @@ import org.jenkinsci.plugins.workflow.support.pickles.XStreamPickle;
             throw new IllegalStateException(branch.getSourceId() + " not found");
         }
         SCMRevision tip;
-        SCMRevisionAction revisionAction = build.getAction(SCMRevisionAction.class);
         if (revisionAction != null) {
             tip = revisionAction.getRevision();
         } else {
@@ -108,7 +143,44 @@ import org.jenkinsci.plugins.workflow.support.pickles.XStreamPickle;
             revisionAction = new SCMRevisionAction(scmSource, tip);
             build.addAction(revisionAction);
         }
-        return scmSource.build(branch.getHead(), tip);
+        SCM scm = scmSource.build(branch.getHead(), tip);
+        PICKLABLE.put(scm, build.getRootDir());
+        MEMOS.put(build, new Memo(tip, scm));
+        RESOLUTIONS.incrementAndGet();
+        return scm;
+    }
+
+    /**
+     * Saves an {@code scm} next to its build, in a file named after the digest of its XML,
+     * so an SCM changed by the script, or another one, gets its own file.
+     * @return the name of the file within the build directory
+     */
+    private static String save(File buildDir, SCM scm) throws IOException {
+        String xml = Items.XSTREAM2.toXML(scm);
+        String name = SCM_FILE_PREFIX + Util.getDigestOf(xml) + ".xml";
+        File file = new File(buildDir, name);
+        if (!file.isFile()) {
+            new XmlFile(Items.XSTREAM2, file).write(scm);
+        }
+        return name;
+    }
+
+    private static final String SCM_FILE_PREFIX = "scm-";
+
+    /**
+     * The {@code scm} of a given build, built once and returned to every reference.
+     * Invalidated if the {@link SCMRevisionAction} of the build is changed to point elsewhere.
+     */
+    private static final class Memo {
+
+        private final SCMRevision revision;
+        private final SCM scm;
+
+        Memo(SCMRevision revision, SCM scm) {
+            this.revision = revision;
+            this.scm = scm;
+        }
+
     }
 
     /**
@@ -117,14 +189,93 @@ import org.jenkinsci.plugins.workflow.support.pickles.XStreamPickle;
      * yet includes a {@link DescribableList} which relies on a custom {@link Converter}.
      * Note that a script which merely calls {@code checkout scm}, even after a restart, does not rely on this;
      * but one which saves {@code scm} somewhere and uses it later would.
+     * When the value is the {@code scm} of a multibranch build, its XML is written once to the build directory
+     * and the program only keeps a reference to that file, rather than repeating the XML at every checkpoint.
+     * The files are deleted once the build is finalized, since the program can no longer be resumed.
      */
     @Extension public static class Pickler extends SingleTypedPickleFactory<SCM> {
 
         @NonNull
         @Override protected Pickle pickle(@NonNull SCM scm) {
+            File buildDir = PICKLABLE.get(scm);
+            if (buildDir != null) {
+                try {
+                    return new ReferencePickle(save(buildDir, scm));
+                } catch (IOException x) {
+                    LOGGER.log(Level.WARNING, "could not save scm of " + buildDir + "; keeping it in the program instead", x);
+                }
+            }
             return new XStreamPickle(scm);
         }
 
     }
 
+    /**
+     * Compact form of the {@code scm} of a multibranch build.
+     * Restores exactly the SCM that was pickled, from the file written by {@link #save}.
+     */
+    private static final class ReferencePickle extends Pickle {
+
+        private static final long serialVersionUID = 3L;
+
+        private final String file;
+
+        ReferencePickle(String file) {
+            this.file = file;
+        }
+
+        @Override public ListenableFuture<?> rehydrate(FlowExecutionOwner owner) {
+            try {
+                Queue.Executable exec = owner.getExecutable();
+                if (!(exec instanceof WorkflowRun)) {
+                    throw new IllegalStateException("inappropriate context");
+                }
+                File buildDir = ((WorkflowRun) exec).getRootDir();
+                XmlFile xml = new XmlFile(Items.XSTREAM2, new File(buildDir, file));
+                if (!xml.exists()) {
+                    throw new AbortException("Saved scm " + xml + " is missing");
+                }
+                SCM scm = (SCM) xml.read();
+                PICKLABLE.put(scm, buildDir);
+                return Futures.immediateFuture(scm);
+            } catch (IOException | RuntimeException x) {
+                return Futures.immediateFailedFuture(x);
+            }
+        }
+
+        @Override public String toString() {
+            return "ReferencePickle[" + file + "]";
+        }
+
+    }
+
+    /**
+     * Deletes the files written by {@link #save} once a build can no longer be resumed, and forgets its lookups.
+     */
+    @Extension public static final class RunListenerImpl extends RunListener<WorkflowRun> {
+
+        @Override public void onFinalized(WorkflowRun run) {
+            cleanUp(run);
+        }
+
+        @Override public void onDeleted(WorkflowRun run) {
+            cleanUp(run);
+        }
+
+        private static void cleanUp(WorkflowRun run) {
+            MEMOS.remove(run);
+            File[] files = run.getRootDir().listFiles((dir, name) -> name.startsWith(SCM_FILE_PREFIX) && name.endsWith(".xml"));
+            if (files != null) {
+                for (File file : files) {
+                    try {
+                        Files.deleteIfExists(file.toPath());
+                    } catch (IOException x) {
+                        LOGGER.log(Level.WARNING, "could not delete " + file, x);
+                    }
+                }
+            }
+        }
+
+    }
+
 }
@@ -26,12 +26,22 @@ package org.jenkinsci.plugins.workflow.multibranch;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
+import hudson.model.JobProperty;
 import hudson.model.TaskListener;
+import hudson.util.LogTaskListener;
 import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.branch.Branch;
+import jenkins.scm.api.SCMFile;
+import jenkins.scm.api.SCMFileSystem;
 import jenkins.scm.api.SCMProbeStat;
+import jenkins.scm.api.SCMRevision;
 import jenkins.scm.api.SCMSource;
 import jenkins.scm.api.SCMSourceCriteria;
 import org.jenkinsci.plugins.workflow.flow.FlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
@@ -39,8 +49,13 @@ import org.kohsuke.stapler.DataBoundSetter;
  * Recognizes and builds {@code Jenkinsfile}.
  */
 public class WorkflowBranchProjectFactory extends AbstractWorkflowBranchProjectFactory {
+    private static final Logger LOGGER = Logger.getLogger(WorkflowBranchProjectFactory.class.getName());
+
     static final String SCRIPT = "Jenkinsfile";
+    /** Appended to the script path to find the job properties read by {@link JobPropertiesExtractor}. */
+    static final String PROPERTIES_SUFFIX = ".properties.json";
     private String scriptPath = SCRIPT;
+    private boolean extractProperties;
 
     public Object readResolve() {
         if (this.scriptPath == null) {
@@ -64,6 +79,75 @@ public class WorkflowBranchProjectFactory extends AbstractWorkflowBranchProjectF
         return scriptPath;
     }
 
+    public boolean isExtractProperties() {
+        return extractProperties;
+    }
+
+    /**
+     * Whether to apply the job properties declared in {@linkplain #PROPERTIES_SUFFIX a file next to the script}
+     * whenever indexing finds a new revision, rather than waiting for a build to run {@link JobPropertyStep}.
+     */
+    @DataBoundSetter
+    public void setExtractProperties(boolean extractProperties) {
+        this.extractProperties = extractProperties;
+    }
+
+    @Override public void setRevisionHash(WorkflowJob project, SCMRevision revision) throws IOException {
+        super.setRevisionHash(project, revision);
+        if (extractProperties) {
+            applyDeclaredProperties(project, revision);
+        }
+    }
+
+    /**
+     * Applies the job properties declared in the trusted revision of a branch, replacing those of the same kind
+     * but keeping anything else the {@code properties} step of the last build set, such as triggers.
+     */
+    @SuppressWarnings("rawtypes")
+    private void applyDeclaredProperties(WorkflowJob project, SCMRevision revision) {
+        if (project.getAction(JobPropertyTrackerAction.class) == null && project.getNextBuildNumber() > 1) {
+            // Built before the tracker existed; only a build can tell which properties came from the script.
+            return;
+        }
+        BranchJobProperty property = project.getProperty(BranchJobProperty.class);
+        if (property == null || !(project.getParent() instanceof WorkflowMultiBranchProject)) {
+            return;
+        }
+        Branch branch = property.getBranch();
+        SCMSource source = ((WorkflowMultiBranchProject) project.getParent()).getSCMSource(branch.getSourceId());
+        if (source == null) {
+            return;
+        }
+        String path = scriptPath + PROPERTIES_SUFFIX;
+        TaskListener listener = new LogTaskListener(LOGGER, Level.FINE);
+        try {
+            // Like SCMBinder, never take configuration from an untrusted contributor.
+            SCMRevision trusted = source.getTrustedRevision(revision, listener);
+            String json;
+            try (SCMFileSystem fs = SCMFileSystem.of(source, branch.getHead(), trusted)) {
+                if (fs == null) {
+                    return; // no lightweight access; left to the build
+                }
+                SCMFile file = fs.child(path);
+                if (!file.isFile()) {
+                    return;
+                }
+                json = file.contentAsString();
+            }
+            List<JobProperty> properties = JobPropertiesExtractor.extract(json);
+            for (JobProperty prop : properties) {
+                if (!prop.getDescriptor().isApplicable(WorkflowJob.class)) {
+                    throw new IOException("cannot apply " + prop.getDescriptor().getId() + " to a branch project");
+                }
+            }
+            JobPropertyStep.mergeProperties(project, properties);
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.WARNING, "Could not apply the job properties declared in " + path + " of " + project.getFullName() + " at " + revision, x);
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @Override protected FlowDefinition createDefinition() {
         return new SCMBinder(scriptPath);
     }
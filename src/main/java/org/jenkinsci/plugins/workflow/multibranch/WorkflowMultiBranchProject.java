@@ -24,18 +24,43 @@
 
 package org.jenkinsci.plugins.workflow.multibranch;
 
+import com.cloudbees.hudson.plugins.folder.computed.ChildObserver;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.model.Action;
 import hudson.model.Descriptor;
 import hudson.model.Item;
 import hudson.model.ItemGroup;
+import hudson.model.Queue;
+import hudson.model.TaskListener;
 import hudson.model.TopLevelItem;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueTaskDispatcher;
 import hudson.scm.SCMDescriptor;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -50,6 +75,7 @@ import jenkins.scm.api.SCMHead;
 import jenkins.scm.api.SCMRevisionAction;
 import jenkins.scm.api.SCMSource;
 import jenkins.scm.api.SCMSourceCriteria;
+import jenkins.util.SystemProperties;
 import org.jenkins.ui.icon.Icon;
 import org.jenkins.ui.icon.IconSet;
 import org.jenkins.ui.icon.IconSpec;
@@ -57,6 +83,8 @@ import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.workflow.cps.Snippetizer;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
 
 /**
  * Representation of a set of workflows keyed off of source branches.
@@ -66,6 +94,25 @@ public class WorkflowMultiBranchProject extends MultiBranchProject<WorkflowJob,W
 
     private static final Logger LOGGER = Logger.getLogger(WorkflowMultiBranchProject.class.getName());
 
+    /** Names of branch projects found without {@link BranchJobProperty} at startup and not yet repaired. */
+    private transient volatile Set<String> awaitingRepair;
+
+    /** Repairs started by {@link #onLoad}. */
+    private transient volatile List<Future<?>> repairs;
+
+    private transient LoadStatistics loadStatistics;
+
+    private transient BranchRevisionIndex revisionIndex;
+
+    /**
+     * Durability hint properties resolved by {@link DurabilityHintBranchProperty.DescriptorImpl#suggestFor}, by source ID and head.
+     * Cleared when the configuration is saved and after each indexing.
+     */
+    private transient volatile Map<Map.Entry<String, SCMHead>, Optional<DurabilityHintBranchProperty>> durabilityHints;
+
+    /** {@link #getSources} by {@link SCMSource#getId}, or null if it needs to be rebuilt. */
+    private transient volatile Map<String, BranchSource> sourceIndex;
+
     public WorkflowMultiBranchProject(ItemGroup parent, String name) {
         super(parent, name);
     }
@@ -75,55 +122,268 @@ public class WorkflowMultiBranchProject extends MultiBranchProject<WorkflowJob,W
         return new WorkflowBranchProjectFactory();
     }
 
+    /**
+     * Revisions recently built by each branch project.
+     */
+    synchronized @NonNull BranchRevisionIndex getRevisionIndex() {
+        if (revisionIndex == null || !revisionIndex.isIn(getRootDir())) {
+            revisionIndex = new BranchRevisionIndex(getRootDir());
+        }
+        return revisionIndex;
+    }
+
+    /**
+     * Looks up a configured source by {@link SCMSource#getId}.
+     * Builds do this several times each, so a project with many sources keeps an index
+     * rather than scanning {@link #getSources} every time.
+     * @param sourceId a source ID
+     * @return the matching source, or null
+     */
+    @CheckForNull BranchSource getBranchSource(@CheckForNull String sourceId) {
+        if (sourceId == null) {
+            return null;
+        }
+        Map<String, BranchSource> index = sourceIndex;
+        BranchSource source = index != null ? index.get(sourceId) : null;
+        if (source == null || !sourceId.equals(source.getSource().getId())) {
+            // Not indexed yet, or modified without save(), such as in tests.
+            index = new HashMap<>();
+            for (BranchSource s : getSources()) {
+                index.putIfAbsent(s.getSource().getId(), s);
+            }
+            sourceIndex = index;
+            source = index.get(sourceId);
+        }
+        return source;
+    }
+
+    @Override public SCMSource getSCMSource(@CheckForNull String sourceId) {
+        BranchSource source = getBranchSource(sourceId);
+        return source != null ? source.getSource() : null;
+    }
+
+    @Override public BranchPropertyStrategy getBranchPropertyStrategy(@NonNull SCMSource source) {
+        BranchSource branchSource = getBranchSource(source.getId());
+        if (branchSource != null && branchSource.getSource().equals(source)) {
+            return branchSource.getStrategy();
+        }
+        return super.getBranchPropertyStrategy(source);
+    }
+
+    @Override public synchronized void save() throws IOException {
+        sourceIndex = null; // called when the sources are reconfigured
+        durabilityHints = null;
+        super.save();
+    }
+
+    /**
+     * Looks up the durability hint property configured for a branch, caching the answer since it is needed for every build.
+     */
+    @CheckForNull DurabilityHintBranchProperty getDurabilityHintProperty(@CheckForNull String sourceId, @NonNull SCMHead head) {
+        Map<Map.Entry<String, SCMHead>, Optional<DurabilityHintBranchProperty>> hints = durabilityHints;
+        if (hints == null) {
+            hints = new ConcurrentHashMap<>();
+            durabilityHints = hints;
+        }
+        return hints.computeIfAbsent(new AbstractMap.SimpleImmutableEntry<>(sourceId, head),
+                k -> Optional.ofNullable(DurabilityHintBranchProperty.DescriptorImpl.resolve(this, sourceId, head))).orElse(null);
+    }
+
     @Override public SCMSourceCriteria getSCMSourceCriteria(@NonNull SCMSource source) {
         return ((AbstractWorkflowBranchProjectFactory) getProjectFactory()).getSCMSourceCriteria(source);
     }
 
+    @Override
+    protected void computeChildren(ChildObserver<WorkflowJob> observer, TaskListener listener) throws IOException, InterruptedException {
+        awaitRepair(); // otherwise projects still missing BranchJobProperty would look like conflicts
+        BranchProjectFactory<WorkflowJob, WorkflowRun> factory = getProjectFactory();
+        if (!(factory instanceof AbstractWorkflowBranchProjectFactory)) {
+            super.computeChildren(observer, listener);
+            durabilityHints = null;
+            return;
+        }
+        AbstractWorkflowBranchProjectFactory workflowFactory = (AbstractWorkflowBranchProjectFactory) factory;
+        workflowFactory.resetSkippedSaves();
+        BranchProjectWriter writer = workflowFactory.startWriteBehind();
+        try {
+            super.computeChildren(observer, listener);
+        } finally {
+            durabilityHints = null; // branch properties may have changed
+            workflowFactory.stopWriteBehind();
+            if (writer != null) {
+                // Do not report indexing as complete until every modified branch project is on disk.
+                writer.await(listener);
+            }
+            int skipped = workflowFactory.resetSkippedSaves();
+            if (skipped > 0) {
+                listener.getLogger().format("Skipped saving %d unchanged branch project(s)%n", skipped);
+            }
+        }
+    }
+
     @Override
     public void onLoad(ItemGroup<? extends Item> parent, String name) throws IOException {
+        long start = System.nanoTime();
+        sourceIndex = null;
+        durabilityHints = null;
         super.onLoad(parent, name);
+        loadStatistics = new LoadStatistics(items.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOGGER.log(loadStatistics.getMillis() >= SLOW_LOAD_MILLIS ? Level.INFO : Level.FINE, "Loaded {0} in {1}", new Object[] {loadStatistics, getFullName()});
+        List<WorkflowJob> broken = new ArrayList<>();
         for (WorkflowJob job : items.values()) {
             if (job.getProperty(BranchJobProperty.class) == null) {
-                //JENKINS-55116 It is highly unlikely that this property shouldn't be there
-                //we only somehow lost the BranchJobProperty so we take the penalty to load a build or two
-                //to see if this is what we think it is, and maybe desperately try to patch it.
-                LOGGER.log(Level.WARNING, String.format("[JENKINS-55116] Found potential broken branch job property on %s, attempting to patch, you'll need to run a full rescan asap.", job.getFullName()));
-                WorkflowRun build = job.getLastBuild();
-                for (int i = 0; i < 3; i++) {
-                    if (build != null) {
-                        SCMRevisionAction action = build.getAction(SCMRevisionAction.class);
-                        if (action != null) {
-                            BranchJobProperty p = reconstructBranchJobProperty(job, action);
-                            if (p != null) {
-                                try {
-                                    job.addProperty(p);
-                                    LOGGER.log(Level.WARNING, String.format("[JENKINS-55116] Reconstructed branch job property on %s from %s, you'll need to run a full rescan asap.", job.getFullName(), build.getNumber()));
-                                    break;
-                                } catch (IOException e) {
-                                    LOGGER.log(Level.SEVERE, String.format("[JENKINS-55116] Failed storing reconstructed branch job property on %s from %s", job.getFullName(), build.getNumber()), e);
-                                }
-                            }
+                broken.add(job);
+            }
+        }
+        if (broken.isEmpty()) {
+            return;
+        }
+        // Loading builds is slow, so repair in the background rather than delaying startup.
+        // Until then the jobs are kept out of the queue by RepairDispatcher, and indexing waits for the repair.
+        Set<String> awaiting = ConcurrentHashMap.newKeySet();
+        for (WorkflowJob job : broken) {
+            awaiting.add(job.getName());
+        }
+        awaitingRepair = awaiting;
+        AtomicInteger done = new AtomicInteger();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (WorkflowJob job : broken) {
+            tasks.add(RepairPool.POOL.submit(() -> {
+                try (ACLContext context = ACL.as2(ACL.SYSTEM2)) {
+                    repair(job);
+                } finally {
+                    awaiting.remove(job.getName());
+                    int count = done.incrementAndGet();
+                    LOGGER.log(count == broken.size() ? Level.INFO : Level.FINE, "[JENKINS-55116] Checked {0} of {1} branch project(s) in {2}",
+                            new Object[] {count, broken.size(), getFullName()});
+                }
+            }));
+        }
+        repairs = tasks;
+    }
+
+    /**
+     * Attempts to restore a missing {@link BranchJobProperty}, using the revision recorded by one of the last few builds.
+     */
+    private void repair(WorkflowJob job) {
+        //JENKINS-55116 It is highly unlikely that this property shouldn't be there
+        //we only somehow lost the BranchJobProperty so we take the penalty to load a build or two
+        //to see if this is what we think it is, and maybe desperately try to patch it.
+        LOGGER.log(Level.WARNING, String.format("[JENKINS-55116] Found potential broken branch job property on %s, attempting to patch, you'll need to run a full rescan asap.", job.getFullName()));
+        Set<Map.Entry<String, String>> tried = new HashSet<>();
+        for (BranchRevisionIndex.Entry entry : getRevisionIndex().get(job.getName())) {
+            if (!tried.add(new AbstractMap.SimpleImmutableEntry<>(entry.getSourceId(), entry.getHead()))) {
+                continue;
+            }
+            SCMRevisionAction action = entry.getRevisionAction();
+            BranchJobProperty p = action != null ? reconstructBranchJobProperty(job, action.getSourceId(), action.getRevision().getHead()) : null;
+            if (p != null) {
+                try {
+                    job.addProperty(p);
+                    LOGGER.log(Level.WARNING, String.format("[JENKINS-55116] Reconstructed branch job property on %s from %s, you'll need to run a full rescan asap.", job.getFullName(), entry.getNumber()));
+                    return;
+                } catch (IOException e) {
+                    LOGGER.log(Level.SEVERE, String.format("[JENKINS-55116] Failed storing reconstructed branch job property on %s from %s", job.getFullName(), entry.getNumber()), e);
+                }
+            }
+        }
+        // Not recorded, perhaps built before the index existed, so load the builds.
+        WorkflowRun build = job.getLastBuild();
+        for (int i = 0; i < 3; i++) {
+            if (build != null) {
+                SCMRevisionAction action = build.getAction(SCMRevisionAction.class);
+                if (action != null) {
+                    BranchJobProperty p = reconstructBranchJobProperty(job, action.getSourceId(), action.getRevision().getHead());
+                    if (p != null) {
+                        try {
+                            job.addProperty(p);
+                            LOGGER.log(Level.WARNING, String.format("[JENKINS-55116] Reconstructed branch job property on %s from %s, you'll need to run a full rescan asap.", job.getFullName(), build.getNumber()));
+                            break;
+                        } catch (IOException e) {
+                            LOGGER.log(Level.SEVERE, String.format("[JENKINS-55116] Failed storing reconstructed branch job property on %s from %s", job.getFullName(), build.getNumber()), e);
                         }
-                        build = build.getPreviousBuild();
                     }
                 }
+                build = build.getPreviousBuild();
             }
         }
     }
 
-    private BranchJobProperty reconstructBranchJobProperty(@NonNull WorkflowJob job, @NonNull SCMRevisionAction action) {
-        String sourceId = action.getSourceId();
-        if (sourceId == null || sourceId.isEmpty()) {
-            return null;
+    /** Loads taking at least this long are logged at {@link Level#INFO}. */
+    private static final long SLOW_LOAD_MILLIS = 10_000;
+
+    /**
+     * How long it took to load this project and its branch projects from disk, if it was loaded rather than created.
+     * Also available from the remote API, so slow projects can be found without debug logging.
+     */
+    @Exported
+    public @CheckForNull LoadStatistics getLoadStatistics() {
+        return loadStatistics;
+    }
+
+    /**
+     * Time taken by {@link #onLoad}.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static final class LoadStatistics {
+
+        private final int children;
+        private final long millis;
+
+        LoadStatistics(int children, long millis) {
+            this.children = children;
+            this.millis = millis;
+        }
+
+        /** Number of branch projects loaded. */
+        @Exported
+        public int getChildren() {
+            return children;
+        }
+
+        /** Elapsed time in milliseconds. */
+        @Exported
+        public long getMillis() {
+            return millis;
+        }
+
+        @Override public String toString() {
+            return children + " branch project(s) in " + millis + " ms";
+        }
+
+    }
+
+    /**
+     * Whether a branch project is still waiting for {@link #onLoad} to repair it.
+     */
+    boolean isAwaitingRepair(@NonNull WorkflowJob job) {
+        Set<String> awaiting = awaitingRepair;
+        return awaiting != null && awaiting.contains(job.getName());
+    }
+
+    /**
+     * Waits for any repairs started by {@link #onLoad} to finish.
+     */
+    void awaitRepair() throws InterruptedException {
+        List<Future<?>> tasks = repairs;
+        if (tasks == null) {
+            return;
         }
-        SCMHead head = action.getRevision().getHead();
-        BranchSource source = null;
-        for (BranchSource s : ((WorkflowMultiBranchProject) job.getParent()).getSources()) {
-            if (sourceId.equals(s.getSource().getId())) {
-                source = s;
-                break;
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException x) {
+                LOGGER.log(Level.WARNING, "[JENKINS-55116] Repair failed in " + getFullName(), x);
             }
         }
+        repairs = null;
+    }
+
+    private BranchJobProperty reconstructBranchJobProperty(@NonNull WorkflowJob job, @CheckForNull String sourceId, @NonNull SCMHead head) {
+        if (sourceId == null || sourceId.isEmpty()) {
+            return null;
+        }
+        BranchSource source = ((WorkflowMultiBranchProject) job.getParent()).getBranchSource(sourceId);
         if (source == null) {
             return null;
         }
@@ -194,6 +454,35 @@ public class WorkflowMultiBranchProject extends MultiBranchProject<WorkflowJob,W
         }
     }
 
+    /** Bounded pool for {@link #onLoad} repairs, shared among all multibranch projects. */
+    static final class RepairPool {
+        static final ExecutorService POOL = Executors.newFixedThreadPool(
+                SystemProperties.getInteger(WorkflowMultiBranchProject.class.getName() + ".REPAIR_THREADS", 2),
+                new NamingThreadFactory(new DaemonThreadFactory(), "WorkflowMultiBranchProject repair"));
+    }
+
+    /**
+     * Keeps branch projects out of the queue until {@link #onLoad} has repaired them,
+     * since without {@link BranchJobProperty} they would not be built from the right branch.
+     */
+    @Extension public static class RepairDispatcher extends QueueTaskDispatcher {
+
+        @Override public CauseOfBlockage canRun(Queue.Item item) {
+            if (item.task instanceof WorkflowJob) {
+                WorkflowJob job = (WorkflowJob) item.task;
+                if (job.getParent() instanceof WorkflowMultiBranchProject && ((WorkflowMultiBranchProject) job.getParent()).isAwaitingRepair(job)) {
+                    return new CauseOfBlockage() {
+                        @Override public String getShortDescription() {
+                            return "Waiting for " + job.getFullDisplayName() + " to be repaired";
+                        }
+                    };
+                }
+            }
+            return null;
+        }
+
+    }
+
     @Extension public static class PerFolderAdder extends TransientActionFactory<WorkflowMultiBranchProject> {
 
         @Override public Class<WorkflowMultiBranchProject> type() {
@@ -0,0 +1,242 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import hudson.model.Item;
+import hudson.model.Items;
+import hudson.model.User;
+import hudson.scm.NullSCM;
+import hudson.security.ACL;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import jenkins.branch.Branch;
+import jenkins.branch.BranchProperty;
+import jenkins.branch.BranchSource;
+import jenkins.branch.DefaultBranchPropertyStrategy;
+import jenkins.plugins.git.GitSCMSource;
+import jenkins.model.Jenkins;
+import jenkins.plugins.git.GitSampleRepoRule;
+import org.jenkinsci.plugins.workflow.flow.FlowDurabilityHint;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MemoryAssert;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.springframework.security.core.Authentication;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProjectTest.scheduleAndFindBranchProject;
+import static org.junit.Assert.*;
+
+public class BranchJobPropertyTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @Rule public GitSampleRepoRule sampleRepo = new GitSampleRepoRule();
+
+    @Test public void branchRebuiltFromSource() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'ran'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        sampleRepo.git("branch", "feature");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        BranchSource bs = new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false));
+        bs.setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[] {new DurabilityHintBranchProperty(FlowDurabilityHint.PERFORMANCE_OPTIMIZED)}));
+        mp.getSourcesList().add(bs);
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "master");
+        r.waitUntilNoActivity();
+        BranchJobProperty property = p.getProperty(BranchJobProperty.class);
+        BranchJobProperty featureProperty = mp.getItem("feature").getProperty(BranchJobProperty.class);
+        assertSame("equal property lists are shared", property.getBranchProperties(), featureProperty.getBranchProperties());
+        assertEquals("master", property.getHead().getName());
+        assertFalse("master carries metadata actions, which must survive too", property.getBranch().getActions().isEmpty());
+
+        String xml = Items.XSTREAM2.toXML(property.getBranch());
+        WeakReference<Branch> ref = new WeakReference<>(property.getBranch());
+        MemoryAssert.assertGC(ref, true);
+        assertEquals(xml, Items.XSTREAM2.toXML(property.getBranch()));
+        r.buildAndAssertSuccess(p);
+
+        r.jenkins.reload();
+        p = r.jenkins.getItemByFullName("p/master", WorkflowJob.class);
+        assertEquals(xml, Items.XSTREAM2.toXML(p.getProperty(BranchJobProperty.class).getBranch()));
+        r.buildAndAssertSuccess(p);
+
+        // Restored as indexing stored it, not from the current source configuration: read again from the config file, since it was loaded from there.
+        mp = r.jenkins.getItemByFullName("p", WorkflowMultiBranchProject.class);
+        mp.getSourcesList().clear();
+        property = p.getProperty(BranchJobProperty.class);
+        ref = new WeakReference<>(property.getBranch());
+        MemoryAssert.assertGC(ref, true);
+        assertEquals(xml, Items.XSTREAM2.toXML(property.getBranch()));
+    }
+
+    @Test public void acl() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'ran'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false)));
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "master");
+        r.waitUntilNoActivity();
+        r.jenkins.setSecurityRealm(r.createDummySecurityRealm());
+        r.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy().
+                grant(Jenkins.READ, Item.READ, Item.BUILD, Item.CONFIGURE, Item.DELETE).everywhere().to("alice"));
+        Authentication alice = User.getById("alice", true).impersonate2();
+        Authentication bob = User.getById("bob", true).impersonate2();
+        ACL acl = p.getACL();
+        assertTrue(acl.hasPermission2(alice, Item.READ));
+        assertTrue(acl.hasPermission2(alice, Item.BUILD));
+        assertFalse("managed by the multibranch project", acl.hasPermission2(alice, Item.CONFIGURE));
+        assertFalse("only dead branches may be deleted", acl.hasPermission2(alice, Item.DELETE));
+        assertFalse(acl.hasPermission2(bob, Item.READ));
+        assertTrue(acl.hasPermission2(ACL.SYSTEM2, Item.CONFIGURE));
+        assertTrue(acl.hasPermission2(ACL.SYSTEM2, Item.DELETE));
+        // SYSTEM keeps every permission even if the underlying ACL does not grant it.
+        ACL none = ACL.lambda2((a, permission) -> false);
+        ACL decorated = p.getProperty(BranchJobProperty.class).decorateACL(none);
+        assertTrue(decorated.hasPermission2(ACL.SYSTEM2, Item.READ));
+        assertTrue(decorated.hasPermission2(ACL.SYSTEM2, Item.BUILD));
+        assertFalse(decorated.hasPermission2(alice, Item.READ));
+
+        BranchJobProperty property = p.getProperty(BranchJobProperty.class);
+        property.setBranch(new Branch.Dead(property.getBranch()));
+        acl = p.getACL();
+        assertTrue("dead branches may be cleaned up early", acl.hasPermission2(alice, Item.DELETE));
+        assertFalse(acl.hasPermission2(alice, Item.CONFIGURE));
+        assertFalse(acl.hasPermission2(bob, Item.DELETE));
+        assertTrue(acl.hasPermission2(ACL.SYSTEM2, Item.CONFIGURE));
+    }
+
+    @Test public void aclWithPerItemStrategy() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'ran'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        sampleRepo.git("branch", "feature");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false)));
+        WorkflowJob master = scheduleAndFindBranchProject(mp, "master");
+        r.waitUntilNoActivity();
+        WorkflowJob feature = mp.getItem("feature");
+        assertNotNull(feature);
+        r.jenkins.setSecurityRealm(r.createDummySecurityRealm());
+        // A strategy which builds a different ACL for each item, and a new one on every call.
+        r.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy().
+                grant(Jenkins.READ).everywhere().to("alice", "bob").
+                grant(Item.READ, Item.BUILD).onItems(master).to("alice").
+                grant(Item.READ, Item.BUILD, Item.CONFIGURE).onItems(feature).to("bob"));
+        Authentication alice = User.getById("alice", true).impersonate2();
+        Authentication bob = User.getById("bob", true).impersonate2();
+        assertTrue(master.getACL().hasPermission2(alice, Item.BUILD));
+        assertFalse(master.getACL().hasPermission2(bob, Item.BUILD));
+        assertFalse(feature.getACL().hasPermission2(alice, Item.BUILD));
+        assertTrue(feature.getACL().hasPermission2(bob, Item.BUILD));
+        assertFalse("still managed by the multibranch project", feature.getACL().hasPermission2(bob, Item.CONFIGURE));
+        // Changing the grants takes effect at once.
+        r.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy().
+                grant(Jenkins.READ).everywhere().to("alice", "bob").
+                grant(Item.READ, Item.BUILD).onItems(feature).to("alice"));
+        assertFalse(master.getACL().hasPermission2(alice, Item.BUILD));
+        assertTrue(feature.getACL().hasPermission2(alice, Item.BUILD));
+        assertFalse(feature.getACL().hasPermission2(bob, Item.BUILD));
+    }
+
+    @Test public void compactForm() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'ran'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        sampleRepo.git("branch", "feature");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false)));
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "feature");
+        r.waitUntilNoActivity();
+        // Unlike master, which is the primary branch, this one has no metadata actions and so may be saved in compact form.
+        assertTrue(p.getProperty(BranchJobProperty.class).getBranch().getActions().isEmpty());
+        String xml = Items.XSTREAM2.toXML(p.getProperty(BranchJobProperty.class).getBranch());
+        assertFalse("off by default", BranchJobProperty.COMPACT);
+        p.save();
+        String full = p.getConfigFile().asString();
+        assertThat(full, containsString("<scm class=\"hudson.plugins.git.GitSCM\""));
+        boolean compact = BranchJobProperty.COMPACT;
+        try {
+            BranchJobProperty.COMPACT = true;
+            p.save();
+            String compacted = p.getConfigFile().asString();
+            assertThat(compacted, not(containsString("<scm")));
+            assertThat(compacted, containsString("<sourceId>"));
+            assertThat(compacted.length(), lessThan(full.length()));
+            p.doReload();
+            assertEquals(xml, Items.XSTREAM2.toXML(p.getProperty(BranchJobProperty.class).getBranch()));
+            r.buildAndAssertSuccess(p);
+
+            // Without its source, a compact branch cannot be rebuilt, but the project still loads, as a dead branch.
+            mp.getSourcesList().clear();
+            mp.save();
+            r.jenkins.reload();
+            p = r.jenkins.getItemByFullName("p/feature", WorkflowJob.class);
+            assertNotNull(p);
+            Branch branch = p.getProperty(BranchJobProperty.class).getBranch();
+            assertThat(branch, instanceOf(Branch.Dead.class));
+            assertThat(branch.getScm(), instanceOf(NullSCM.class));
+            assertEquals("feature", branch.getName());
+            assertFalse(p.isBuildable());
+            // Still saved in compact form, so it comes back if the source does.
+            p.save();
+            assertThat(p.getConfigFile().asString(), containsString("<sourceId>"));
+        } finally {
+            BranchJobProperty.COMPACT = compact;
+        }
+    }
+
+    @Test public void neitherFormDropsProperty() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'ran'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false)));
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "master");
+        r.waitUntilNoActivity();
+        String config = p.getConfigFile().asString();
+        String broken = config.replaceAll("(?s)(<org\\.jenkinsci\\.plugins\\.workflow\\.multibranch\\.BranchJobProperty[^>]*>).*?(</org\\.jenkinsci\\.plugins\\.workflow\\.multibranch\\.BranchJobProperty>)", "$1$2");
+        assertNotEquals(config, broken);
+        Files.writeString(p.getConfigFile().getFile().toPath(), broken);
+        p.doReload();
+        assertNull(p.getProperty(BranchJobProperty.class));
+    }
+
+}
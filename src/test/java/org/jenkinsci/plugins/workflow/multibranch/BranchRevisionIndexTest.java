@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import jenkins.branch.BranchSource;
+import jenkins.plugins.git.GitSCMSource;
+import jenkins.plugins.git.GitSampleRepoRule;
+import jenkins.scm.api.SCMRevisionAction;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProjectTest.scheduleAndFindBranchProject;
+import static org.junit.Assert.*;
+
+public class BranchRevisionIndexTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @Rule public GitSampleRepoRule sampleRepo = new GitSampleRepoRule();
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test public void recordsCompletedBuilds() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'ran'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false)));
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "master");
+        r.waitUntilNoActivity();
+        sampleRepo.git("commit", "--allow-empty", "--message=second");
+        WorkflowRun b2 = r.buildAndAssertSuccess(p);
+
+        List<BranchRevisionIndex.Entry> entries = mp.getRevisionIndex().get("master");
+        assertEquals(2, entries.size());
+        BranchRevisionIndex.Entry last = entries.get(0);
+        assertEquals(2, last.getNumber());
+        assertEquals("SUCCESS", last.getResult());
+        assertEquals(b2.getAction(SCMRevisionAction.class).getRevision().toString(), last.getHash());
+        assertEquals("master", last.getHead());
+        assertEquals(b2.getAction(SCMRevisionAction.class).getSourceId(), last.getSourceId());
+
+        // Read back from disk.
+        BranchRevisionIndex reloaded = new BranchRevisionIndex(mp.getRootDir());
+        assertEquals(2, reloaded.get("master").size());
+        assertEquals(last.getHash(), reloaded.get("master").get(0).getHash());
+        // The action is kept whole, so the head keeps its type.
+        SCMRevisionAction action = reloaded.get("master").get(0).getRevisionAction();
+        assertNotNull(action);
+        assertEquals(b2.getAction(SCMRevisionAction.class).getRevision(), action.getRevision());
+        assertEquals(b2.getAction(SCMRevisionAction.class).getRevision().getHead().getClass(), action.getRevision().getHead().getClass());
+
+        p.delete();
+        assertEquals(0, mp.getRevisionIndex().get("master").size());
+        assertEquals(0, new BranchRevisionIndex(mp.getRootDir()).get("master").size());
+    }
+
+    @Test public void forgetAppendsRatherThanRewriting() throws Exception {
+        File dir = tmp.newFolder();
+        BranchRevisionIndex index = new BranchRevisionIndex(dir);
+        for (int i = 0; i < 20; i++) {
+            index.record("branch\t" + i, new BranchRevisionIndex.Entry(1, "source", "feature/" + i, "abc" + i, "SUCCESS"));
+        }
+        File file = new File(dir, BranchRevisionIndex.FILE);
+        assertEquals(20, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+        for (int i = 0; i < 10; i++) {
+            index.forget("branch\t" + i);
+        }
+        // One marker line per deleted branch project, below the compaction threshold.
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(30, lines.size());
+        assertEquals("branch%090\t1\tSUCCESS\tsource\tfeature%2F0\tabc0\t", lines.get(0));
+        assertEquals("branch%090", lines.get(20));
+        BranchRevisionIndex reloaded = new BranchRevisionIndex(dir);
+        assertEquals(0, reloaded.get("branch\t0").size());
+        assertEquals(1, reloaded.get("branch\t19").size());
+        BranchRevisionIndex.Entry entry = reloaded.get("branch\t19").get(0);
+        assertEquals("feature/19", entry.getHead());
+        assertEquals("abc19", entry.getHash());
+        assertEquals("source", entry.getSourceId());
+        assertEquals(1, entry.getNumber());
+    }
+
+}
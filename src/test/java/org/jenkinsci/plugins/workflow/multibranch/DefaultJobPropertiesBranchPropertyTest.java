@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import hudson.model.JobProperty;
+import hudson.tasks.LogRotator;
+import java.util.Arrays;
+import java.util.List;
+import jenkins.branch.BranchProperty;
+import jenkins.branch.BranchSource;
+import jenkins.branch.DefaultBranchPropertyStrategy;
+import jenkins.model.BuildDiscarderProperty;
+import jenkins.plugins.git.GitSCMSource;
+import jenkins.plugins.git.GitSampleRepoRule;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.properties.DisableConcurrentBuildsJobProperty;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProjectTest.scheduleAndFindBranchProject;
+import static org.junit.Assert.*;
+
+public class DefaultJobPropertiesBranchPropertyTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @Rule public GitSampleRepoRule sampleRepo = new GitSampleRepoRule();
+
+    @SuppressWarnings("rawtypes")
+    @Test public void defaultsAppliedAndOverridden() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "properties([buildDiscarder(logRotator(numToKeepStr: '5')), disableConcurrentBuilds()])");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        BranchSource bs = new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false));
+        List<JobProperty> defaults = Arrays.asList(
+                new BuildDiscarderProperty(new LogRotator(-1, 5, -1, -1)),
+                new DisableConcurrentBuildsJobProperty());
+        bs.setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[] {new DefaultJobPropertiesBranchProperty(defaults)}));
+        mp.getSourcesList().add(bs);
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "master");
+        r.waitUntilNoActivity();
+        assertEquals(1, p.getBuilds().size());
+        BuildDiscarderProperty discarder = p.getProperty(BuildDiscarderProperty.class);
+        assertNotNull(discarder);
+        assertNotSame(defaults.get(0), discarder);
+        assertEquals("5", ((LogRotator) discarder.getStrategy()).getNumToKeepStr());
+        assertNotNull(p.getProperty(DisableConcurrentBuildsJobProperty.class));
+
+        // Overriding one default replaces it for this branch.
+        sampleRepo.write("Jenkinsfile", "properties([buildDiscarder(logRotator(numToKeepStr: '2'))])");
+        sampleRepo.git("commit", "--all", "--message=override");
+        r.buildAndAssertSuccess(p);
+        assertEquals("2", ((LogRotator) p.getProperty(BuildDiscarderProperty.class).getStrategy()).getNumToKeepStr());
+        assertNotNull(p.getProperty(DisableConcurrentBuildsJobProperty.class));
+
+        // Dropping the override restores the default.
+        sampleRepo.write("Jenkinsfile", "properties([])");
+        sampleRepo.git("commit", "--all", "--message=restore");
+        r.buildAndAssertSuccess(p);
+        assertEquals("5", ((LogRotator) p.getProperty(BuildDiscarderProperty.class).getStrategy()).getNumToKeepStr());
+        assertNotNull(p.getProperty(DisableConcurrentBuildsJobProperty.class));
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test public void removedDefaultDropped() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'ran'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        BranchSource bs = new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false));
+        List<JobProperty> defaults = Arrays.asList(
+                new BuildDiscarderProperty(new LogRotator(-1, 5, -1, -1)),
+                new DisableConcurrentBuildsJobProperty());
+        bs.setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[] {new DefaultJobPropertiesBranchProperty(defaults)}));
+        mp.getSourcesList().add(bs);
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "master");
+        r.waitUntilNoActivity();
+        assertNotNull(p.getProperty(BuildDiscarderProperty.class));
+        assertNotNull(p.getProperty(DisableConcurrentBuildsJobProperty.class));
+
+        // Dropping a default from the configuration removes it from the branch project at the next indexing.
+        bs.setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[] {new DefaultJobPropertiesBranchProperty(Arrays.asList(defaults.get(1)))}));
+        sampleRepo.write("Jenkinsfile", "echo 'ran again'");
+        sampleRepo.git("commit", "--all", "--message=again");
+        mp.scheduleBuild2(0).getFuture().get();
+        r.waitUntilNoActivity();
+        assertEquals(2, p.getBuilds().size());
+        assertNull(p.getProperty(BuildDiscarderProperty.class));
+        assertNotNull(p.getProperty(DisableConcurrentBuildsJobProperty.class));
+
+        // Dropping all defaults removes the rest.
+        bs.setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[0]));
+        sampleRepo.write("Jenkinsfile", "echo 'ran once more'");
+        sampleRepo.git("commit", "--all", "--message=once more");
+        mp.scheduleBuild2(0).getFuture().get();
+        r.waitUntilNoActivity();
+        assertNull(p.getProperty(DisableConcurrentBuildsJobProperty.class));
+        assertNull(p.getAction(DefaultJobPropertiesBranchProperty.StampedAction.class));
+    }
+
+}
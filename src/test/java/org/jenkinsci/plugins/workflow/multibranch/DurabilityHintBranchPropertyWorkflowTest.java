@@ -25,6 +25,7 @@
 package org.jenkinsci.plugins.workflow.multibranch;
 
 import hudson.model.Result;
+import java.util.concurrent.TimeUnit;
 import jenkins.branch.BranchProperty;
 import jenkins.branch.BranchSource;
 import jenkins.branch.DefaultBranchPropertyStrategy;
@@ -122,4 +123,69 @@ public class DurabilityHintBranchPropertyWorkflowTest {
 
         Assert.assertEquals(GlobalDefaultFlowDurabilityLevel.getDefaultDurabilityHint(), DurabilityHintProvider.suggestedFor(mp.getItems().iterator().next()));
     }
+
+    @Test
+    @Issue("JENKINS-48826")
+    public void strategyChangeInvalidatesCachedHint() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'whynot'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        BranchSource bs = new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false));
+        mp.getSourcesList().add(bs);
+        bs.setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[]{new DurabilityHintBranchProperty(FlowDurabilityHint.SURVIVABLE_NONATOMIC)}));
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "master");
+        r.waitUntilNoActivity();
+        Assert.assertEquals(FlowDurabilityHint.SURVIVABLE_NONATOMIC, DurabilityHintProvider.suggestedFor(p)); // now cached
+
+        // Reconfiguring saves the project, which must discard the cached hint without waiting for indexing.
+        bs.setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[]{new DurabilityHintBranchProperty(FlowDurabilityHint.PERFORMANCE_OPTIMIZED)}));
+        mp.save();
+        Assert.assertEquals(FlowDurabilityHint.PERFORMANCE_OPTIMIZED, DurabilityHintProvider.suggestedFor(p));
+        WorkflowRun b2 = r.buildAndAssertSuccess(p);
+        Assert.assertEquals(FlowDurabilityHint.PERFORMANCE_OPTIMIZED, b2.getExecution().getDurabilityHint());
+
+        bs.setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[]{}));
+        r.configRoundtrip(mp);
+        Assert.assertEquals(GlobalDefaultFlowDurabilityLevel.getDefaultDurabilityHint(), DurabilityHintProvider.suggestedFor(p));
+    }
+
+    @Test
+    public void adaptive() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'whynot'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        BranchSource bs = new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false));
+        mp.getSourcesList().add(bs);
+        DurabilityHintBranchProperty prop = new DurabilityHintBranchProperty(FlowDurabilityHint.MAX_SURVIVABILITY);
+        prop.setAdaptive(true);
+        bs.setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[]{prop}));
+        r.configRoundtrip(mp);
+        prop = (DurabilityHintBranchProperty) ((DefaultBranchPropertyStrategy) mp.getBranchPropertyStrategy(mp.getSCMSources().get(0))).getProps()[0];
+        Assert.assertTrue(prop.isAdaptive());
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "master");
+        r.waitUntilNoActivity();
+        Assert.assertEquals(FlowDurabilityHint.MAX_SURVIVABILITY, DurabilityHintProvider.suggestedFor(p));
+
+        DiskLatencyMonitor monitor = DiskLatencyMonitor.get();
+        long threshold = DiskLatencyMonitor.THRESHOLD_MILLIS;
+        DiskLatencyMonitor.THRESHOLD_MILLIS = 100;
+        try {
+            int switches = monitor.getSwitches();
+            monitor.update(TimeUnit.SECONDS.toNanos(10));
+            Assert.assertEquals(switches + 1, monitor.getSwitches());
+            Assert.assertEquals(FlowDurabilityHint.PERFORMANCE_OPTIMIZED, DurabilityHintProvider.suggestedFor(p));
+            WorkflowRun b2 = r.buildAndAssertSuccess(p);
+            Assert.assertEquals(FlowDurabilityHint.PERFORMANCE_OPTIMIZED, b2.getExecution().getDurabilityHint());
+            while (monitor.getSwitches() == switches + 1) {
+                monitor.update(0);
+            }
+            Assert.assertEquals(FlowDurabilityHint.MAX_SURVIVABILITY, DurabilityHintProvider.suggestedFor(p));
+        } finally {
+            DiskLatencyMonitor.THRESHOLD_MILLIS = threshold;
+        }
+    }
 }
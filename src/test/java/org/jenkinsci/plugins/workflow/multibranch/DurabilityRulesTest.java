@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import hudson.XmlFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.logging.Level;
+import jenkins.branch.BranchProperty;
+import jenkins.branch.BranchSource;
+import jenkins.branch.DefaultBranchPropertyStrategy;
+import jenkins.plugins.git.GitSCMSource;
+import jenkins.plugins.git.GitSampleRepoRule;
+import jenkins.scm.api.SCMHead;
+import org.jenkinsci.plugins.workflow.flow.FlowDurabilityHint;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.LoggerRule;
+
+import static org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProjectTest.scheduleAndFindBranchProject;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.*;
+
+public class DurabilityRulesTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @Rule public GitSampleRepoRule sampleRepo = new GitSampleRepoRule();
+    @Rule public LoggerRule logging = new LoggerRule();
+
+    @Test public void configRoundtrip() throws Exception {
+        DurabilityRules.get().setRules(Arrays.asList(
+                new DurabilityRules.Rule(DurabilityRules.HeadType.CHANGE_REQUEST, null, FlowDurabilityHint.PERFORMANCE_OPTIMIZED),
+                new DurabilityRules.Rule(DurabilityRules.HeadType.BRANCH, "release/.*", FlowDurabilityHint.MAX_SURVIVABILITY)));
+        r.configRoundtrip();
+        assertEquals(2, DurabilityRules.get().getRules().size());
+        DurabilityRules.Rule rule = DurabilityRules.get().getRules().get(1);
+        assertEquals(DurabilityRules.HeadType.BRANCH, rule.getHeadType());
+        assertEquals("release/.*", rule.getPattern());
+        assertEquals(FlowDurabilityHint.MAX_SURVIVABILITY, rule.getHint());
+    }
+
+    @Test public void ruleApplied() throws Exception {
+        DurabilityRules.get().setRules(Collections.singletonList(
+                new DurabilityRules.Rule(DurabilityRules.HeadType.BRANCH, "feature-.*", FlowDurabilityHint.PERFORMANCE_OPTIMIZED)));
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'ran'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        sampleRepo.git("checkout", "-b", "feature-1");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false)));
+        WorkflowJob feature = scheduleAndFindBranchProject(mp, "feature-1");
+        r.waitUntilNoActivity();
+        WorkflowRun b = feature.getLastBuild();
+        assertEquals(FlowDurabilityHint.PERFORMANCE_OPTIMIZED, b.getExecution().getDurabilityHint());
+        DurabilityRules.AppliedAction action = b.getAction(DurabilityRules.AppliedAction.class);
+        assertNotNull(action);
+        assertEquals(FlowDurabilityHint.PERFORMANCE_OPTIMIZED, action.getHint());
+        assertEquals(FlowDurabilityHint.PERFORMANCE_OPTIMIZED, action.getRuleHint());
+        assertTrue(action.isEffective());
+        assertNull(mp.getItem("master").getLastBuild().getAction(DurabilityRules.AppliedAction.class));
+
+        // An explicit branch property takes precedence.
+        mp.getSourcesList().get(0).setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[] {new DurabilityHintBranchProperty(FlowDurabilityHint.MAX_SURVIVABILITY)}));
+        mp.save();
+        mp.scheduleBuild2(0).getFuture().get();
+        b = r.buildAndAssertSuccess(feature);
+        assertEquals(FlowDurabilityHint.MAX_SURVIVABILITY, b.getExecution().getDurabilityHint());
+        action = b.getAction(DurabilityRules.AppliedAction.class);
+        assertFalse(action.isEffective());
+        assertEquals("records what the build got, not what the rule said", FlowDurabilityHint.MAX_SURVIVABILITY, action.getHint());
+        assertEquals(FlowDurabilityHint.PERFORMANCE_OPTIMIZED, action.getRuleHint());
+
+        // Even when it happens to suggest the same hint.
+        mp.getSourcesList().get(0).setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[] {new DurabilityHintBranchProperty(FlowDurabilityHint.PERFORMANCE_OPTIMIZED)}));
+        mp.save();
+        b = r.buildAndAssertSuccess(feature);
+        assertEquals(FlowDurabilityHint.PERFORMANCE_OPTIMIZED, b.getExecution().getDurabilityHint());
+        assertFalse(b.getAction(DurabilityRules.AppliedAction.class).isEffective());
+    }
+
+    @Test public void badStoredRulesSkipped() throws Exception {
+        DurabilityRules rules = DurabilityRules.get();
+        rules.setRules(Arrays.asList(
+                new DurabilityRules.Rule(DurabilityRules.HeadType.BRANCH, "broken", FlowDurabilityHint.PERFORMANCE_OPTIMIZED),
+                new DurabilityRules.Rule(DurabilityRules.HeadType.ANY, "unset", FlowDurabilityHint.SURVIVABLE_NONATOMIC),
+                new DurabilityRules.Rule(DurabilityRules.HeadType.BRANCH, "release/.*", FlowDurabilityHint.MAX_SURVIVABILITY)));
+        XmlFile file = rules.getConfigFile();
+        String xml = file.asString();
+        xml = xml.replace("<pattern>broken</pattern>", "<pattern>[</pattern>");
+        xml = xml.replace("<hint>SURVIVABLE_NONATOMIC</hint>", "");
+        Files.writeString(file.getFile().toPath(), xml);
+        logging.record(DurabilityRules.class, Level.WARNING).capture(10);
+        rules.load();
+        assertEquals(3, rules.getRules().size());
+        assertThat(logging.getMessages(), hasItem(containsString("invalid pattern")));
+        assertThat(logging.getMessages(), hasItem(containsString("no durability hint")));
+        assertNull(rules.match(new SCMHead("[")));
+        assertNull(rules.match(new SCMHead("unset")));
+        assertEquals(FlowDurabilityHint.MAX_SURVIVABILITY, rules.match(new SCMHead("release/1")).getHint());
+        assertNotNull(rules.getRules().get(1).toString());
+    }
+
+}
@@ -24,6 +24,8 @@
 
 package org.jenkinsci.plugins.workflow.multibranch;
 
+import hudson.ExtensionList;
+import hudson.XmlFile;
 import hudson.model.BooleanParameterDefinition;
 import hudson.model.BooleanParameterValue;
 import hudson.model.ChoiceParameterDefinition;
@@ -31,7 +33,9 @@ import hudson.model.JobProperty;
 import hudson.model.ParametersAction;
 import hudson.model.ParametersDefinitionProperty;
 import hudson.model.Result;
+import hudson.model.Saveable;
 import hudson.model.StringParameterValue;
+import hudson.model.listeners.SaveableListener;
 import hudson.model.queue.QueueTaskFuture;
 import hudson.tasks.LogRotator;
 
@@ -40,6 +44,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 
 import hudson.triggers.SCMTrigger;
 import hudson.triggers.TimerTrigger;
@@ -75,6 +80,10 @@ import org.jenkinsci.plugins.workflow.job.properties.PipelineTriggersJobProperty
 import org.jenkinsci.plugins.workflow.steps.StepConfigTester;
 import org.jenkinsci.plugins.workflow.test.steps.SemaphoreStep;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.*;
 
 import org.junit.After;
@@ -86,6 +95,8 @@ import org.junit.Test;
 import org.jvnet.hudson.test.BuildWatcher;
 import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.LoggerRule;
+import org.jvnet.hudson.test.TestExtension;
 import org.jvnet.hudson.test.recipes.LocalData;
 import org.kohsuke.stapler.NoStaplerConstructorException;
 
@@ -97,6 +108,7 @@ public class JobPropertyStepTest {
     @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
     @Rule public JenkinsRule r = new JenkinsRule();
     @Rule public GitSampleRepoRule sampleRepo = new GitSampleRepoRule();
+    @Rule public LoggerRule logging = new LoggerRule();
 
     /**
      * Needed to ensure that we get a fresh {@code MockTrigger#startsAndStops} with each test run. Has to be *after* rather than
@@ -336,6 +348,118 @@ public class JobPropertyStepTest {
         assertTrue(action3.getJobPropertyDescriptors().isEmpty());
     }
 
+    @Test public void unchangedPropertiesNotReapplied() throws Exception {
+        WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("properties([buildDiscarder(logRotator(numToKeepStr: '1'))])", true));
+        r.assertLogNotContains("Job properties are unchanged", r.buildAndAssertSuccess(p));
+        BuildDiscarderProperty first = p.getProperty(BuildDiscarderProperty.class);
+        assertNotNull(first);
+
+        r.assertLogContains("Job properties are unchanged since the last build", r.buildAndAssertSuccess(p));
+        assertSame(first, p.getProperty(BuildDiscarderProperty.class));
+
+        p.setDefinition(new CpsFlowDefinition("properties([buildDiscarder(logRotator(numToKeepStr: '2'))])", true));
+        r.buildAndAssertSuccess(p);
+        BuildDiscarderProperty second = p.getProperty(BuildDiscarderProperty.class);
+        assertNotNull(second);
+        assertNotSame(first, second);
+        assertEquals("2", ((LogRotator) second.getStrategy()).getNumToKeepStr());
+    }
+
+    @Test public void trackerReconstructedOnce() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "properties([buildDiscarder(logRotator(numToKeepStr: '1'))])");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false)));
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "master");
+        r.waitUntilNoActivity();
+        assertEquals(1, p.getBuilds().size());
+        // Simulate a job last built before JobPropertyTrackerAction existed.
+        p.removeAction(p.getAction(JobPropertyTrackerAction.class));
+        p.save();
+        sampleRepo.write("Jenkinsfile", "properties([])");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        r.buildAndAssertSuccess(p);
+        assertNull(p.getProperty(BuildDiscarderProperty.class));
+        JobPropertyTrackerAction action = p.getAction(JobPropertyTrackerAction.class);
+        assertNotNull(action);
+        assertTrue(action.getJobPropertyDescriptors().isEmpty());
+        assertThat(p.getConfigFile().asString(), containsString(JobPropertyTrackerAction.class.getName()));
+    }
+
+    @Test public void trackerMigration() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "properties([buildDiscarder(logRotator(numToKeepStr: '1'))])");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false)));
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "master");
+        r.waitUntilNoActivity();
+        assertEquals(1, p.getBuilds().size());
+        // Simulate a job last built before JobPropertyTrackerAction existed.
+        p.removeAction(p.getAction(JobPropertyTrackerAction.class));
+        p.save();
+        assertEquals(1, JobPropertyStep.Migration.run());
+        JobPropertyTrackerAction action = p.getAction(JobPropertyTrackerAction.class);
+        assertNotNull(action);
+        assertEquals(Collections.singleton(r.jenkins.getDescriptor(BuildDiscarderProperty.class).getId()), action.getJobPropertyDescriptors());
+        assertThat(p.getConfigFile().asString(), containsString(JobPropertyTrackerAction.class.getName()));
+        assertEquals(0, JobPropertyStep.Migration.run());
+    }
+
+    @Test public void previousRunScanLimitLogged() throws Exception {
+        logging.record(JobPropertyStep.class, Level.INFO).capture(10);
+        int limit = JobPropertyStep.PREVIOUS_RUN_SCAN_LIMIT;
+        JobPropertyStep.PREVIOUS_RUN_SCAN_LIMIT = 1;
+        try {
+            WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, "p");
+            p.setDefinition(new CpsFlowDefinition("echo 'one'; echo 'two'", true));
+            WorkflowRun b1 = r.buildAndAssertSuccess(p);
+            assertTrue(JobPropertyStep.ranStep(b1));
+            assertThat(logging.getMessages(), hasItem(containsString("Gave up looking for the properties step in " + b1)));
+        } finally {
+            JobPropertyStep.PREVIOUS_RUN_SCAN_LIMIT = limit;
+        }
+    }
+
+    @Test public void concurrentBuildsShareOneSave() throws Exception {
+        WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("semaphore 'wait'; properties([buildDiscarder(logRotator(numToKeepStr: '3'))])", true));
+        List<WorkflowRun> builds = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            WorkflowRun b = p.scheduleBuild2(0).waitForStart();
+            SemaphoreStep.waitForStart("wait/" + i, b);
+            builds.add(b);
+        }
+        CountingSaveableListener listener = ExtensionList.lookupSingleton(CountingSaveableListener.class);
+        listener.saves.clear();
+        for (int i = 1; i <= 3; i++) {
+            SemaphoreStep.success("wait/" + i, null);
+        }
+        for (WorkflowRun b : builds) {
+            r.assertBuildStatusSuccess(r.waitForCompletion(b));
+        }
+        assertEquals("one save shared by all builds", 1, listener.saves.size());
+        assertThat("saved off the CPS VM thread", listener.saves.get(0), not(containsString("CpsFlowExecution")));
+        BuildDiscarderProperty prop = p.getProperty(BuildDiscarderProperty.class);
+        assertNotNull(prop);
+        assertEquals("3", ((LogRotator) prop.getStrategy()).getNumToKeepStr());
+        assertEquals(Collections.singleton(r.jenkins.getDescriptor(BuildDiscarderProperty.class).getId()), p.getAction(JobPropertyTrackerAction.class).getJobPropertyDescriptors());
+    }
+
+    /** Records the thread of each save of job {@code p}. */
+    @TestExtension("concurrentBuildsShareOneSave") public static class CountingSaveableListener extends SaveableListener {
+        final List<String> saves = Collections.synchronizedList(new ArrayList<>());
+        @Override public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof WorkflowJob && ((WorkflowJob) o).getFullName().equals("p")) {
+                saves.add(Thread.currentThread().getName());
+            }
+        }
+    }
+
     @Issue("JENKINS-44848")
     @LocalData
     @Test
@@ -456,6 +580,29 @@ public class JobPropertyStepTest {
         assertEquals("[null, false, null]", MockTrigger.startsAndStops.toString());
     }
 
+    @Test public void unchangedTriggersKeepRunning() throws Exception {
+        WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("properties([pipelineTriggers([cron('@daily'), [$class: 'MockTrigger']])])", true));
+        r.buildAndAssertSuccess(p);
+        MockTrigger mockTrigger = getTriggerFromList(MockTrigger.class, p.getTriggersJobProperty().getTriggers());
+        assertNotNull(mockTrigger);
+        assertEquals("[null, false]", MockTrigger.startsAndStops.toString());
+
+        p.setDefinition(new CpsFlowDefinition("properties([pipelineTriggers([cron('@hourly'), [$class: 'MockTrigger']])])", true));
+        r.buildAndAssertSuccess(p);
+        TimerTrigger timerTrigger = getTriggerFromList(TimerTrigger.class, p.getTriggersJobProperty().getTriggers());
+        assertNotNull(timerTrigger);
+        assertEquals("@hourly", timerTrigger.getSpec());
+        assertSame(mockTrigger, getTriggerFromList(MockTrigger.class, p.getTriggersJobProperty().getTriggers()));
+        assertTrue(mockTrigger.isStarted);
+        assertEquals("[null, false]", MockTrigger.startsAndStops.toString());
+
+        p.setDefinition(new CpsFlowDefinition("properties([pipelineTriggers([cron('@hourly')])])", true));
+        r.buildAndAssertSuccess(p);
+        assertNull(getTriggerFromList(MockTrigger.class, p.getTriggersJobProperty().getTriggers()));
+        assertEquals("[null, false, null]", MockTrigger.startsAndStops.toString());
+    }
+
     @Issue("JENKINS-37731")
     @Test public void scmTriggerProperty() throws Exception {
         WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, "p");
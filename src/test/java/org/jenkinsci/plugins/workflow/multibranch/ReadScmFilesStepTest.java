@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import hudson.model.Result;
+import hudson.model.TopLevelItem;
+import jenkins.scm.impl.mock.MockSCMController;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class ReadScmFilesStepTest {
+
+    @ClassRule
+    public static JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void cleanOutAllItems() throws Exception {
+        for (TopLevelItem i : j.getInstance().getItems()) {
+            i.delete();
+        }
+    }
+
+    @Test
+    public void given_existingFiles_when_invoked_then_contentsReturned() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("repo");
+            c.createBranch("repo", "manchu");
+            c.addFile("repo", "manchu", "Add version", "VERSION", "1.2.3".getBytes());
+            c.addFile("repo", "manchu", "Add manifest", "manifest.txt", "lib".getBytes());
+            WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "workflow");
+            job.setDefinition(new CpsFlowDefinition(
+                    "def files = readScmFiles source: mockScm(controllerId:'"
+                    + c.getId()
+                    + "', repository:'repo', traits: [discoverBranches()]), "
+                    + "targets:['bar', 'manchu'], paths: ['VERSION', 'manifest.txt']\n"
+                    + "echo \"version=${files['VERSION']} manifest=${files['manifest.txt']}\"\n", true));
+            WorkflowRun b = j.buildAndAssertSuccess(job);
+            j.assertLogContains("version=1.2.3 manifest=lib", b);
+        }
+    }
+
+    @Test
+    public void given_missingFile_when_invoked_then_abortThrown() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("repo");
+            c.createBranch("repo", "foo");
+            WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "workflow");
+            job.setDefinition(new CpsFlowDefinition(
+                    "readScmFiles source: mockScm(controllerId:'"
+                    + c.getId()
+                    + "', repository:'repo', traits: [discoverBranches()]), "
+                    + "targets:['foo'], paths: ['VERSION']\n", true));
+            WorkflowRun b = j.buildAndAssertStatus(Result.FAILURE, job);
+            j.assertLogContains("VERSION not found in foo", b);
+        }
+    }
+
+    @Test
+    public void given_nonExistingHeadName_when_invokedIgnoringErrors_then_nullReturned() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("repo");
+            c.createBranch("repo", "foo");
+            WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "workflow");
+            job.setDefinition(new CpsFlowDefinition(
+                    "def files = readScmFiles source: mockScm(controllerId:'"
+                    + c.getId()
+                    + "', repository:'repo', traits: [discoverBranches()]), "
+                    + "targets:['bar'], paths: ['VERSION'], ignoreErrors: true\n"
+                    + "if (files != null) { error \"read ${files}\" }\n", true));
+            j.buildAndAssertSuccess(job);
+        }
+    }
+}
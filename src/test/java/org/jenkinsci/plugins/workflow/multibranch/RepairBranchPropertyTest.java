@@ -24,19 +24,23 @@
 package org.jenkinsci.plugins.workflow.multibranch;
 
 import com.cloudbees.hudson.plugins.folder.computed.FolderComputation;
+import hudson.Util;
 import hudson.model.Actionable;
 import hudson.model.Cause;
 import hudson.model.Job;
 import hudson.model.Queue;
 import hudson.model.Result;
 import hudson.model.TopLevelItem;
+import hudson.model.queue.QueueTaskFuture;
 import jenkins.branch.MultiBranchProject;
 import jenkins.branch.OrganizationFolder;
 import jenkins.scm.api.SCMRevisionAction;
 import jenkins.scm.impl.mock.MockSCMController;
 import jenkins.scm.impl.mock.MockSCMDiscoverBranches;
+import jenkins.scm.impl.mock.MockSCMHead;
 import jenkins.scm.impl.mock.MockSCMNavigator;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -45,11 +49,16 @@ import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.recipes.LocalData;
 
 import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
 
-import static junit.framework.TestCase.assertEquals;
-import static junit.framework.TestCase.assertNotNull;
-import static junit.framework.TestCase.assertNull;
-import static junit.framework.TestCase.assertTrue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class RepairBranchPropertyTest {
 
@@ -91,6 +100,7 @@ public class RepairBranchPropertyTest {
         assertNotNull(org);
         repo = org.getItem("repo");
         assertNotNull(repo);
+        ((WorkflowMultiBranchProject) repo).awaitRepair();
         master = repo.getItem("master");
         assertNotNull(master);
 
@@ -128,6 +138,7 @@ public class RepairBranchPropertyTest {
         assertNotNull(org);
         repo = org.getItem("repo");
         assertNotNull(repo);
+        ((WorkflowMultiBranchProject) repo).awaitRepair();
         master = repo.getItem("master");
         assertNotNull(master);
 
@@ -136,6 +147,84 @@ public class RepairBranchPropertyTest {
         assertTrue(repo.getPrimaryView().contains((TopLevelItem)master));
     }
 
+    @Test @Issue("JENKINS-55116")
+    public void removedPropertyBlocksBuildsUntilRepaired() throws Exception {
+        OrganizationFolder org = j.createProject(OrganizationFolder.class, "org");
+        org.getNavigators().add(new MockSCMNavigator(controller.getId(), new MockSCMDiscoverBranches()));
+        org.save();
+        org.scheduleBuild(new Cause.UserIdCause("anonymous"));
+        j.waitUntilNoActivity();
+        MultiBranchProject<?, ?> repo = org.getItem("repo");
+        assertNotNull(repo);
+        Job<?, ?> master = repo.getItem("master");
+        assertNotNull(master);
+        master.removeProperty(BranchJobProperty.class);
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) WorkflowMultiBranchProject.RepairPool.POOL;
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < pool.getMaximumPoolSize(); i++) {
+                pool.submit(() -> {
+                    release.await(); // keep the repair queued
+                    return null;
+                });
+            }
+            j.jenkins.reload();
+            WorkflowMultiBranchProject mp = (WorkflowMultiBranchProject) j.jenkins.getItemByFullName("org/repo");
+            assertNotNull(mp);
+            WorkflowJob broken = mp.getItem("master");
+            assertNotNull(broken);
+            assertNull(broken.getProperty(BranchJobProperty.class));
+            assertTrue(mp.isAwaitingRepair(broken));
+            QueueTaskFuture<?> future = j.jenkins.getQueue().schedule2(broken, 0).getItem().getFuture();
+            j.jenkins.getQueue().maintain();
+            Queue.Item item = j.jenkins.getQueue().getItem(broken);
+            assertNotNull(item);
+            assertTrue(item.isBlocked());
+            assertThat(item.getWhy(), containsString("to be repaired"));
+            assertEquals(1, broken.getLastBuild().getNumber());
+
+            release.countDown();
+            mp.awaitRepair();
+            assertFalse(mp.isAwaitingRepair(broken));
+            assertNotNull(broken.getProperty(BranchJobProperty.class));
+            WorkflowRun b = (WorkflowRun) future.get();
+            j.assertBuildStatusSuccess(b);
+            assertEquals(2, b.getNumber());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test @Issue("JENKINS-55116")
+    public void removedPropertyRepairedFromRevisionIndex() throws Exception {
+        OrganizationFolder org = j.createProject(OrganizationFolder.class, "org");
+        org.getNavigators().add(new MockSCMNavigator(controller.getId(), new MockSCMDiscoverBranches()));
+        org.save();
+        org.scheduleBuild(new Cause.UserIdCause("anonymous"));
+        j.waitUntilNoActivity();
+        WorkflowMultiBranchProject repo = (WorkflowMultiBranchProject) org.getItem("repo");
+        assertNotNull(repo);
+        WorkflowJob master = repo.getItem("master");
+        assertNotNull(master);
+        assertEquals(1, repo.getRevisionIndex().get("master").size());
+        master.removeProperty(BranchJobProperty.class);
+        // Without builds, only the index can tell which branch this was.
+        Util.deleteRecursive(master.getBuildDir());
+        j.jenkins.reload();
+
+        repo = (WorkflowMultiBranchProject) j.jenkins.getItemByFullName("org/repo");
+        assertNotNull(repo);
+        repo.awaitRepair();
+        master = repo.getItem("master");
+        assertNotNull(master);
+        assertNull(master.getLastBuild());
+        BranchJobProperty property = master.getProperty(BranchJobProperty.class);
+        assertNotNull(property);
+        assertEquals("master", property.getBranch().getName());
+        assertEquals(MockSCMHead.class, property.getBranch().getHead().getClass());
+        assertTrue(repo.getProjectFactory().isProject(master));
+    }
+
     @Test @LocalData @Issue("JENKINS-55116")
     public void removedPropertyAtStartup() throws Exception {
         MockSCMController cont = MockSCMController.recreate("9ea2ef21-aa07-4973-a942-6c4c4c7851d1");
@@ -144,6 +233,7 @@ public class RepairBranchPropertyTest {
         assertNotNull(org);
         MultiBranchProject<?, ?> repo = org.getItem("repo");
         assertNotNull(repo);
+        ((WorkflowMultiBranchProject) repo).awaitRepair();
         WorkflowJob master = (WorkflowJob)repo.getItem("master");
         assertNotNull(master);
         assertNotNull(master.getProperty(BranchJobProperty.class));
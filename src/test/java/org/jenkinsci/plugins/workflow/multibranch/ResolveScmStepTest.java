@@ -26,11 +26,14 @@
 package org.jenkinsci.plugins.workflow.multibranch;
 
 import hudson.model.TopLevelItem;
+import jenkins.plugins.git.GitSampleRepoRule;
 import jenkins.scm.impl.mock.MockSCMController;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.junit.Before;
 import org.junit.ClassRule;
+import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
 
@@ -39,6 +42,9 @@ public class ResolveScmStepTest {
     @ClassRule
     public static JenkinsRule j = new JenkinsRule();
 
+    @Rule
+    public GitSampleRepoRule sampleRepo = new GitSampleRepoRule();
+
     @Before
     public void cleanOutAllItems() throws Exception {
         for (TopLevelItem i : j.getInstance().getItems()) {
@@ -121,4 +127,62 @@ public class ResolveScmStepTest {
             j.buildAndAssertSuccess(job);
         }
     }
+
+    @Test
+    public void given_cacheEnabled_when_invokedTwice_then_resolutionReused() throws Exception {
+        long ttl = ResolveScmCache.TTL;
+        ResolveScmCache.TTL = 60_000;
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("repo");
+            c.createBranch("repo", "foo");
+            WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "workflow");
+            job.setDefinition(new CpsFlowDefinition("resolveScm source: mockScm(controllerId:'"
+                    + c.getId()
+                    + "', repository:'repo', traits: [discoverBranches()]), "
+                    + "targets:['bar', 'foo']\n", true));
+            WorkflowRun b1 = j.buildAndAssertSuccess(job);
+            j.assertLogNotContains("Reusing recent resolution", b1);
+            WorkflowRun b2 = j.buildAndAssertSuccess(job);
+            j.assertLogContains("Reusing recent resolution", b2);
+            j.assertLogContains(", hit rate ", b2);
+            j.assertLogContains("Found foo", b2);
+            WorkflowJob other = j.jenkins.createProject(WorkflowJob.class, "other");
+            other.setDefinition(job.getDefinition());
+            WorkflowRun o1 = j.buildAndAssertSuccess(other);
+            j.assertLogNotContains("Reusing recent resolution", o1);
+            j.assertLogContains("Resolved from the SCM (cache hits ", o1);
+            j.assertLogContains(", hit rate ", o1);
+        } finally {
+            ResolveScmCache.TTL = ttl;
+            ResolveScmCache.clear();
+        }
+    }
+
+    @Test
+    public void given_namedLookup_when_invoked_then_headsLookedUpByName() throws Exception {
+        sampleRepo.init();
+        WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "workflow");
+        job.setDefinition(new CpsFlowDefinition("resolveScm source: [$class: 'GitSCMSource', remote: '"
+                + sampleRepo
+                + "', traits: [[$class: 'BranchDiscoveryTrait']]], "
+                + "targets:['bar', 'master']\n", true));
+        WorkflowRun b = j.buildAndAssertSuccess(job);
+        j.assertLogContains("Looked up 2 head(s) by name and visited ", b);
+        j.assertLogNotContains("Visited ", b);
+        j.assertLogContains("Found master", b);
+    }
+
+    @Test
+    public void given_namedLookupOfExcludedHead_when_invoked_then_excludedHeadSkipped() throws Exception {
+        sampleRepo.init();
+        sampleRepo.git("tag", "v1");
+        WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "workflow");
+        job.setDefinition(new CpsFlowDefinition("resolveScm source: [$class: 'GitSCMSource', remote: '"
+                + sampleRepo
+                + "', traits: [[$class: 'BranchDiscoveryTrait']]], "
+                + "targets:['v1', 'master']\n", true));
+        WorkflowRun b = j.buildAndAssertSuccess(job);
+        j.assertLogNotContains("Found v1", b);
+        j.assertLogContains("Found master", b);
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+
+package org.jenkinsci.plugins.workflow.multibranch;
+
+import hudson.model.Result;
+import hudson.model.TopLevelItem;
+import jenkins.scm.impl.mock.MockSCMController;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class ResolveScmsStepTest {
+
+    @ClassRule
+    public static JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void cleanOutAllItems() throws Exception {
+        for (TopLevelItem i : j.getInstance().getItems()) {
+            i.delete();
+        }
+    }
+
+    @Test
+    public void given_severalSources_when_invoked_then_resolvedInOrder() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("lib");
+            c.createBranch("lib", "foo");
+            c.addFile("lib", "foo", "Add file", "lib.txt", "content".getBytes());
+            c.createRepository("tests");
+            c.createBranch("tests", "manchu");
+            c.addFile("tests", "manchu", "Add file", "tests.txt", "content".getBytes());
+            c.createRepository("docs");
+            WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "workflow");
+            job.setDefinition(new CpsFlowDefinition("node {\n"
+                    + "  def scms = resolveScms entries: [\n"
+                    + "    [source: mockScm(controllerId:'" + c.getId() + "', repository:'lib', traits: [discoverBranches()]), targets: ['foo']],\n"
+                    + "    [source: mockScm(controllerId:'" + c.getId() + "', repository:'tests', traits: [discoverBranches()]), targets: ['foo', 'manchu']],\n"
+                    + "    [source: mockScm(controllerId:'" + c.getId() + "', repository:'docs', traits: [discoverBranches()]), targets: ['foo'], ignoreErrors: true]\n"
+                    + "  ], parallelism: 2\n"
+                    + "  if (scms.size() != 3) { error \"resolved ${scms.size()}\" }\n"
+                    + "  if (scms[2] != null) { error \"resolved as ${scms[2]}\" }\n"
+                    + "  dir('lib') { checkout scms[0] }\n"
+                    + "  dir('tests') { checkout scms[1] }\n"
+                    + "  if (!fileExists('lib/lib.txt')) { error 'wrong branch checked out for lib' }\n"
+                    + "  if (!fileExists('tests/tests.txt')) { error 'wrong branch checked out for tests' }\n"
+                    + "}", true));
+            WorkflowRun b = j.buildAndAssertSuccess(job);
+            j.assertLogContains("[0] Found foo", b);
+            j.assertLogContains("[1] Found manchu", b);
+            j.assertLogContains("[2] Could not find any matching branch", b);
+        }
+    }
+
+    @Test
+    public void given_nonExistingHeadName_when_invoked_then_abortThrown() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("lib");
+            c.createBranch("lib", "foo");
+            c.createRepository("tests");
+            WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "workflow");
+            job.setDefinition(new CpsFlowDefinition("resolveScms entries: [\n"
+                    + "  [source: mockScm(controllerId:'" + c.getId() + "', repository:'lib', traits: [discoverBranches()]), targets: ['foo']],\n"
+                    + "  [source: mockScm(controllerId:'" + c.getId() + "', repository:'tests', traits: [discoverBranches()]), targets: ['foo']]\n"
+                    + "]\n", true));
+            WorkflowRun b = j.buildAndAssertStatus(Result.FAILURE, job);
+            j.assertLogContains("[1] Could not find any matching branch from [foo]", b);
+        }
+    }
+
+    @Test
+    public void given_failingSource_when_invokedIgnoringErrors_then_nullReturned() throws Exception {
+        try (MockSCMController c = MockSCMController.create()) {
+            c.createRepository("lib");
+            c.createBranch("lib", "foo");
+            WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "workflow");
+            job.setDefinition(new CpsFlowDefinition("def scms = resolveScms entries: [\n"
+                    + "  [source: mockScm(controllerId:'" + c.getId() + "', repository:'lib', traits: [discoverBranches()]), targets: ['foo']],\n"
+                    + "  [source: mockScm(controllerId:'" + c.getId() + "', repository:'missing', traits: [discoverBranches()]), targets: ['foo'], ignoreErrors: true]\n"
+                    + "]\n"
+                    + "if (scms[0] == null || scms[1] != null) { error \"resolved as ${scms}\" }\n", true));
+            WorkflowRun b = j.buildAndAssertSuccess(job);
+            j.assertLogContains("[0] Found foo", b);
+            j.assertLogContains("[1] Could not resolve: ", b);
+        }
+    }
+}
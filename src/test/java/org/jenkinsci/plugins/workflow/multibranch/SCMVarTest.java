@@ -28,8 +28,10 @@ import hudson.FilePath;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Collections;
 import jenkins.branch.BranchProperty;
 import jenkins.branch.BranchSource;
 import jenkins.branch.DefaultBranchPropertyStrategy;
@@ -38,6 +40,7 @@ import jenkins.plugins.git.GitSCMSource;
 import jenkins.plugins.git.GitSampleRepoRule;
 import jenkins.plugins.git.GitStep;
 import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.scriptsecurity.scripts.ScriptApproval;
 import org.jenkinsci.plugins.workflow.cps.CpsScmFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
@@ -85,6 +88,64 @@ public class SCMVarTest {
         });
     }
 
+    @Test public void scmPickleKeepsPickledState() throws Throwable {
+        story.then(j -> {
+                sampleGitRepo.init();
+                sampleGitRepo.write("Jenkinsfile", "def _scm = scm; semaphore 'wait'; node {checkout _scm; echo readFile('file')}");
+                sampleGitRepo.write("file", "initial content");
+                sampleGitRepo.git("add", "Jenkinsfile");
+                sampleGitRepo.git("commit", "--all", "--message=flow");
+                WorkflowMultiBranchProject mp = j.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+                mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleGitRepo.toString(), "", "*", "", false), new DefaultBranchPropertyStrategy(new BranchProperty[0])));
+                WorkflowJob p = WorkflowMultiBranchProjectTest.scheduleAndFindBranchProject(mp, "master");
+                SemaphoreStep.waitForStart("wait/1", null);
+                // Resumption must not pick up later changes to the source.
+                String id = mp.getSCMSources().get(0).getId();
+                mp.setSourcesList(Collections.singletonList(new BranchSource(new GitSCMSource(id, sampleGitRepo.toString() + "-moved", "", "*", "", false), new DefaultBranchPropertyStrategy(new BranchProperty[0]))));
+        });
+        story.then(j -> {
+                WorkflowJob p = j.jenkins.getItemByFullName("p/master", WorkflowJob.class);
+                assertNotNull(p);
+                WorkflowRun b1 = p.getLastBuild();
+                assertNotNull(b1);
+                String remote = sampleGitRepo.toString();
+                String program = new String(Files.readAllBytes(new File(b1.getRootDir(), "program.dat").toPath()), StandardCharsets.ISO_8859_1);
+                assertFalse("GitSCM is not repeated in the program", program.contains(remote));
+                File[] saved = b1.getRootDir().listFiles((dir, name) -> name.startsWith("scm-") && name.endsWith(".xml"));
+                assertNotNull(saved);
+                assertEquals(1, saved.length);
+                assertTrue(FileUtils.readFileToString(saved[0], StandardCharsets.UTF_8).contains(remote));
+                SemaphoreStep.success("wait/1", null);
+                j.assertLogContains("initial content", j.assertBuildStatusSuccess(j.waitForCompletion(b1)));
+                // No longer needed once the build cannot be resumed.
+                while (b1.getRootDir().listFiles((dir, name) -> name.startsWith("scm-") && name.endsWith(".xml")).length > 0) {
+                    Thread.sleep(100);
+                }
+        });
+    }
+
+    @Test public void resolvedOncePerBuild() throws Throwable {
+        story.then(j -> {
+                sampleGitRepo.init();
+                ScriptApproval.get().approveSignature("staticMethod org.codehaus.groovy.runtime.DefaultGroovyMethods is java.lang.Object java.lang.Object");
+                sampleGitRepo.write("Jenkinsfile", "def scms = [scm, scm, scm]; echo \"same instance: ${scms[0].is(scms[1]) && scms[1].is(scms[2])}\"; parallel a: {node {checkout scm}}, b: {node {checkout scm}}; node {checkout scms[0]; echo readFile('file')}");
+                sampleGitRepo.write("file", "some content");
+                sampleGitRepo.git("add", "Jenkinsfile");
+                sampleGitRepo.git("commit", "--all", "--message=flow");
+                WorkflowMultiBranchProject mp = j.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+                mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleGitRepo.toString(), "", "*", "", false), new DefaultBranchPropertyStrategy(new BranchProperty[0])));
+                int before = SCMVar.RESOLUTIONS.get();
+                WorkflowJob p = WorkflowMultiBranchProjectTest.scheduleAndFindBranchProject(mp, "master");
+                j.waitUntilNoActivity();
+                WorkflowRun b1 = p.getLastBuild();
+                assertNotNull(b1);
+                j.assertBuildStatusSuccess(b1);
+                j.assertLogContains("some content", b1);
+                j.assertLogContains("same instance: true", b1);
+                assertEquals(1, SCMVar.RESOLUTIONS.get() - before);
+        });
+    }
+
     @Issue("JENKINS-30222")
     @Test public void globalVariable() throws Throwable {
         story.then(j -> {
@@ -25,13 +25,22 @@
 package org.jenkinsci.plugins.workflow.multibranch;
 
 import java.io.File;
+import java.io.IOException;
+import hudson.tasks.LogRotator;
 import java.util.Collections;
+import jenkins.branch.Branch;
+import jenkins.branch.BranchProperty;
 import jenkins.branch.BranchSource;
+import jenkins.branch.DefaultBranchPropertyStrategy;
+import jenkins.branch.NoTriggerBranchProperty;
+import jenkins.model.BuildDiscarderProperty;
 import jenkins.plugins.git.GitSCMSource;
 import jenkins.plugins.git.GitSampleRepoRule;
 import jenkins.plugins.git.traits.BranchDiscoveryTrait;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.job.properties.DisableConcurrentBuildsJobProperty;
+import org.jenkinsci.plugins.workflow.job.properties.PipelineTriggersJobProperty;
 import static org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProjectTest.scheduleAndFindBranchProject;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -88,6 +97,98 @@ public class WorkflowBranchProjectFactoryTest {
                 verifyProject(j, p);
         });
     }
+    @Test public void extractProperties() throws Throwable {
+        story.then(j -> {
+                sampleRepo.init();
+                sampleRepo.write("Jenkinsfile", "properties([pipelineTriggers([cron('@daily')])])\necho 'ran'");
+                sampleRepo.write("Jenkinsfile.properties.json", "[{'buildDiscarder': {'strategy': {'$class': 'LogRotator', 'numToKeepStr': '3'}}}, {'disableConcurrentBuilds': {}}]");
+                sampleRepo.git("add", "Jenkinsfile", "Jenkinsfile.properties.json");
+                sampleRepo.git("commit", "--all", "--message=flow");
+                sampleRepo.git("checkout", "-b", "triggers");
+                sampleRepo.write("Jenkinsfile.properties.json", "[{'pipelineTriggers': {'triggers': [{'$class': 'TimerTrigger', 'spec': '@daily'}]}}]");
+                sampleRepo.git("commit", "--all", "--message=triggers");
+                WorkflowMultiBranchProject mp = j.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+                WorkflowBranchProjectFactory factory = new WorkflowBranchProjectFactory();
+                factory.setExtractProperties(true);
+                mp.setProjectFactory(factory);
+                GitSCMSource source = new GitSCMSource(sampleRepo.toString());
+                source.setTraits(Collections.singletonList(new BranchDiscoveryTrait()));
+                BranchSource branchSource = new BranchSource(source);
+                branchSource.setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[] {new NoTriggerBranchProperty()}));
+                mp.getSourcesList().add(branchSource);
+                mp.scheduleBuild2(0).getFuture().get();
+                j.waitUntilNoActivity();
+                WorkflowJob p = mp.getItem("master");
+                assertNotNull(p);
+                assertNull(p.getLastBuild());
+                BuildDiscarderProperty discarder = p.getProperty(BuildDiscarderProperty.class);
+                assertNotNull(discarder);
+                assertEquals("3", ((LogRotator) discarder.getStrategy()).getNumToKeepStr());
+                assertNotNull(p.getProperty(DisableConcurrentBuildsJobProperty.class));
+                assertNull("the script is not parsed", p.getProperty(PipelineTriggersJobProperty.class));
+                JobPropertyTrackerAction action = p.getAction(JobPropertyTrackerAction.class);
+                assertNotNull(action);
+                assertEquals(2, action.getJobPropertyDescriptors().size());
+                WorkflowJob triggers = mp.getItem("triggers");
+                assertNotNull(triggers);
+                assertNull("triggers may not be declared", triggers.getProperty(PipelineTriggersJobProperty.class));
+                assertNull(triggers.getAction(JobPropertyTrackerAction.class));
+                // Indexing again without new revisions reads nothing.
+                mp.scheduleBuild2(0).getFuture().get();
+                j.waitUntilNoActivity();
+                assertSame(discarder, p.getProperty(BuildDiscarderProperty.class));
+        });
+    }
+
+    @Test public void extractedPropertiesKeepScriptTriggers() throws Throwable {
+        story.then(j -> {
+                sampleRepo.init();
+                sampleRepo.write("Jenkinsfile", "properties([pipelineTriggers([cron('@daily')])])\necho 'ran'");
+                sampleRepo.write("Jenkinsfile.properties.json", "[{'buildDiscarder': {'strategy': {'$class': 'LogRotator', 'numToKeepStr': '3'}}}]");
+                sampleRepo.git("add", "Jenkinsfile", "Jenkinsfile.properties.json");
+                sampleRepo.git("commit", "--all", "--message=flow");
+                WorkflowMultiBranchProject mp = j.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+                WorkflowBranchProjectFactory factory = new WorkflowBranchProjectFactory();
+                factory.setExtractProperties(true);
+                mp.setProjectFactory(factory);
+                GitSCMSource source = new GitSCMSource(sampleRepo.toString());
+                source.setTraits(Collections.singletonList(new BranchDiscoveryTrait()));
+                BranchSource branchSource = new BranchSource(source);
+                branchSource.setStrategy(new DefaultBranchPropertyStrategy(new BranchProperty[] {new NoTriggerBranchProperty()}));
+                mp.getSourcesList().add(branchSource);
+                mp.scheduleBuild2(0).getFuture().get();
+                j.waitUntilNoActivity();
+                WorkflowJob p = mp.getItem("master");
+                assertNotNull(p);
+                j.buildAndAssertSuccess(p);
+                PipelineTriggersJobProperty triggers = p.getProperty(PipelineTriggersJobProperty.class);
+                assertNotNull(triggers);
+                assertEquals(1, triggers.getTriggers().size());
+                // A new revision of the properties file replaces the discarder but leaves the script's trigger running.
+                sampleRepo.write("Jenkinsfile.properties.json", "[{'buildDiscarder': {'strategy': {'$class': 'LogRotator', 'numToKeepStr': '5'}}}]");
+                sampleRepo.git("commit", "--all", "--message=five");
+                mp.scheduleBuild2(0).getFuture().get();
+                j.waitUntilNoActivity();
+                assertEquals(1, p.getBuilds().size());
+                BuildDiscarderProperty discarder = p.getProperty(BuildDiscarderProperty.class);
+                assertNotNull(discarder);
+                assertEquals("5", ((LogRotator) discarder.getStrategy()).getNumToKeepStr());
+                assertSame(triggers, p.getProperty(PipelineTriggersJobProperty.class));
+                assertEquals(1, p.getTriggers().size());
+                JobPropertyTrackerAction action = p.getAction(JobPropertyTrackerAction.class);
+                assertNotNull(action);
+                assertEquals(2, action.getJobPropertyDescriptors().size());
+        });
+    }
+
+    @Test public void extractPropertiesRejectsUnknownProperties() throws Throwable {
+        story.then(j -> {
+                assertThrows(IOException.class, () -> JobPropertiesExtractor.extract("[{'pipelineTriggers': {'triggers': []}}]"));
+                assertThrows(IOException.class, () -> JobPropertiesExtractor.extract("[{'noSuchProperty': {}}]"));
+                assertThrows(IOException.class, () -> JobPropertiesExtractor.extract("properties([disableConcurrentBuilds()])"));
+        });
+    }
+
     private static void verifyProject(JenkinsRule j, WorkflowJob p) throws Exception {
         assertEquals("dev%2Fmain", p.getName());
         assertEquals("dev/main", p.getDisplayName());
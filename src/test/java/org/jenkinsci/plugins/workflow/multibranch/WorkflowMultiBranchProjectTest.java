@@ -26,20 +26,28 @@ package org.jenkinsci.plugins.workflow.multibranch;
 
 import com.cloudbees.hudson.plugins.folder.computed.FolderComputation;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.BulkChange;
 import hudson.model.AbstractItem;
 import hudson.model.DescriptorVisibilityFilter;
 import hudson.model.Item;
+import hudson.model.JobProperty;
+import hudson.model.JobPropertyDescriptor;
 import hudson.model.Queue;
+import hudson.model.TaskListener;
 import hudson.model.listeners.ItemListener;
 import hudson.plugins.git.GitSCM;
 import hudson.scm.ChangeLogParser;
 import hudson.scm.SCM;
 import hudson.scm.SCMDescriptor;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import jenkins.branch.BranchProperty;
 import jenkins.branch.BranchPropertyDescriptor;
 import jenkins.branch.BranchPropertyStrategy;
@@ -64,7 +72,9 @@ import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.ClassRule;
@@ -113,6 +123,129 @@ public class WorkflowMultiBranchProjectTest {
         r.assertLogContains("branch=feature", b1);
     }
 
+    @Test public void branchProjectsWrittenBehindIndexing() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'ran'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        sampleRepo.git("checkout", "-b", "feature");
+        sampleRepo.git("commit", "--allow-empty", "--message=feature");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false), new DefaultBranchPropertyStrategy(new BranchProperty[] {new NoTriggerBranchProperty()})));
+        WorkflowJob p = scheduleAndFindBranchProject(mp, "feature");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        mp.getIndexing().writeWholeLogTo(log);
+        assertThat(log.toString(), containsString("branch project(s) in"));
+        // Indexing is only complete once the projects are on disk.
+        assertTrue(p.getConfigFile().exists());
+        assertTrue(mp.getItem("master").getConfigFile().exists());
+        int threads = BranchProjectWriter.THREADS;
+        BranchProjectWriter.THREADS = 1;
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            BranchProjectWriter.pool().submit(() -> {
+                release.await(); // hold the only writer thread so snapshots queue up
+                return null;
+            });
+            BranchProjectWriter writer = new BranchProjectWriter();
+            try (BulkChange bc = new BulkChange(p)) {
+                p.setDescription("first");
+                writer.save(p);
+                p.setDescription("second");
+                writer.save(p);
+            }
+            try (BulkChange bc = new BulkChange(p)) {
+                p.setDescription("never saved"); // the writer must not serialize the project itself
+            }
+            WorkflowJob master = mp.getItem("master");
+            try (BulkChange bc = new BulkChange(master)) {
+                master.setDescription("stale");
+                writer.save(master);
+            }
+            master.setDescription("saved directly");
+            release.countDown();
+            writer.await(TaskListener.NULL);
+            assertEquals("one write per project, with the latest snapshot", 1, writer.getWritten());
+            assertEquals(2, writer.getSuperseded());
+            assertThat(p.getConfigFile().asString(), containsString("<description>second</description>"));
+            assertThat(master.getConfigFile().asString(), containsString("<description>saved directly</description>"));
+        } finally {
+            release.countDown();
+            BranchProjectWriter.THREADS = threads;
+        }
+    }
+
+    @Test public void loadStatistics() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'ran'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false), new DefaultBranchPropertyStrategy(new BranchProperty[] {new NoTriggerBranchProperty()})));
+        scheduleAndFindBranchProject(mp, "master");
+        assertNull(mp.getLoadStatistics());
+        r.jenkins.reload();
+        mp = r.jenkins.getItemByFullName("p", WorkflowMultiBranchProject.class);
+        WorkflowMultiBranchProject.LoadStatistics statistics = mp.getLoadStatistics();
+        assertNotNull(statistics);
+        assertEquals(1, statistics.getChildren());
+        assertThat(statistics.getMillis(), greaterThanOrEqualTo(0L));
+    }
+
+    @Test public void branchProjectsLoadedOnce() throws Exception {
+        sampleRepo.init();
+        sampleRepo.write("Jenkinsfile", "echo 'ran'");
+        sampleRepo.git("add", "Jenkinsfile");
+        sampleRepo.git("commit", "--all", "--message=flow");
+        for (String branch : new String[] {"one", "two"}) {
+            sampleRepo.git("checkout", "-b", branch, "master");
+            sampleRepo.git("commit", "--allow-empty", "--message=" + branch);
+        }
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        mp.getSourcesList().add(new BranchSource(new GitSCMSource(null, sampleRepo.toString(), "", "*", "", false), new DefaultBranchPropertyStrategy(new BranchProperty[] {new NoTriggerBranchProperty()})));
+        scheduleAndFindBranchProject(mp, "two");
+        r.waitUntilNoActivity();
+        for (WorkflowJob p : mp.getItems()) {
+            p.addProperty(new LoadCountingProperty());
+        }
+        LoadCountingProperty.LOADS.clear();
+        r.jenkins.reload();
+        mp = r.jenkins.getItemByFullName("p", WorkflowMultiBranchProject.class);
+        assertEquals(3, mp.getLoadStatistics().getChildren());
+        for (String branch : new String[] {"master", "one", "two"}) {
+            WorkflowJob p = mp.getItem(branch);
+            assertNotNull(branch, p);
+            assertSame(mp, p.getParent());
+            assertEquals(branch, Integer.valueOf(1), LoadCountingProperty.LOADS.get(p.getFullName()));
+        }
+    }
+
+    public static final class LoadCountingProperty extends JobProperty<WorkflowJob> {
+        static final Map<String, Integer> LOADS = new ConcurrentHashMap<>();
+        @Override protected void setOwner(WorkflowJob owner) {
+            super.setOwner(owner);
+            LOADS.merge(owner.getFullName(), 1, Integer::sum);
+        }
+        @TestExtension("branchProjectsLoadedOnce") public static final class DescriptorImpl extends JobPropertyDescriptor {}
+    }
+
+    @Test public void sourceIndex() throws Exception {
+        WorkflowMultiBranchProject mp = r.jenkins.createProject(WorkflowMultiBranchProject.class, "p");
+        GitSCMSource one = new GitSCMSource("one", "https://example.com/one.git", "", "*", "", false);
+        GitSCMSource two = new GitSCMSource("two", "https://example.com/two.git", "", "*", "", false);
+        BranchPropertyStrategy strategy = new DefaultBranchPropertyStrategy(new BranchProperty[] {new NoTriggerBranchProperty()});
+        mp.getSourcesList().add(new BranchSource(one));
+        mp.getSourcesList().add(new BranchSource(two, strategy));
+        assertSame(one, mp.getSCMSource("one"));
+        assertSame(two, mp.getSCMSource("two"));
+        assertSame(strategy, mp.getBranchPropertyStrategy(two));
+        assertNull(mp.getSCMSource("three"));
+        GitSCMSource three = new GitSCMSource("three", "https://example.com/three.git", "", "*", "", false);
+        mp.getSourcesList().replaceBy(List.of(new BranchSource(three)));
+        assertNull(mp.getSCMSource("one"));
+        assertSame(three, mp.getSCMSource("three"));
+    }
+
     // TODO commit notifications can both add branch projects and build them
     // TODO scheduled reindexing can add branch projects
     // TODO regular polling works on branch projects